@@ -0,0 +1,27 @@
+package com.wonkglorg.utilitylib.benchmark;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An audience keeping only the last received message and the amount of messages received
+ */
+public final class CollectingAudience implements Audience{
+	private long received;
+	private Component last;
+	
+	@Override
+	public void sendMessage(@NotNull Component message) {
+		received++;
+		last = message;
+	}
+	
+	public long received() {
+		return received;
+	}
+	
+	public Component last() {
+		return last;
+	}
+}
@@ -0,0 +1,168 @@
+package com.wonkglorg.utilitylib.benchmark;
+
+import com.wonkglorg.utilitylib.config.io.FsyncPolicy;
+import com.wonkglorg.utilitylib.config.types.Config;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how loading, saving and reading configs scales with the file size and nesting depth of synthetic yml trees.
+ *
+ * <p>Reports throughput and latency percentiles, run with {@code mvn -P benchmark test-compile exec:exec -Djmh.args="ConfigBenchmark -prof gc"}
+ * to include the allocation rate. The amount of values in the generated file is reported as the {@code keys} counter to relate results to
+ * the key count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConfigBenchmark{
+	/**
+	 * Entries per leaf section and child sections per inner section of the generated tree
+	 */
+	private static final int LEAF_ENTRIES = 8;
+	private static final int FAN_OUT = 4;
+	
+	/**
+	 * Approximate size of the generated file in KB
+	 */
+	@Param({"1", "1024", "51200"})
+	public int sizeKb;
+	/**
+	 * Nesting depth of the generated sections
+	 */
+	@Param({"1", "4", "8"})
+	public int depth;
+	
+	private Path directory;
+	private Config external;
+	private Config pluginConfig;
+	/**
+	 * Amount of values in the generated file
+	 */
+	private int keyCount;
+	
+	/**
+	 * Reports the key count of the generated file alongside the timings
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class TreeSize{
+		public long keys;
+	}
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("utilitylib-benchmark");
+		Path dataFolder = Files.createDirectories(directory.resolve("data"));
+		Path resources = Files.createDirectories(directory.resolve("resources"));
+		String yml = createTree();
+		Files.writeString(directory.resolve("external.yml"), yml);
+		Files.writeString(dataFolder.resolve("plugin.yml"), yml);
+		Files.writeString(resources.resolve("plugin.yml"), yml);
+		//moves the files out of the racy window so unchanged loads can rely on the size and modification time
+		FileTime past = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1));
+		Files.setLastModifiedTime(directory.resolve("external.yml"), past);
+		Files.setLastModifiedTime(dataFolder.resolve("plugin.yml"), past);
+		
+		external = Config.fromExternalPath(directory.resolve("external.yml"));
+		external.setFsyncPolicy(FsyncPolicy.NEVER);
+		pluginConfig = new Config(HeadlessPlugin.create(dataFolder, resources), "plugin.yml");
+	}
+	
+	private String createTree() {
+		long targetSize = sizeKb * 1024L;
+		StringBuilder builder = new StringBuilder("root:\n");
+		int section = 0;
+		while(builder.length() < targetSize){
+			builder.append("  section-").append(section++).append(":\n");
+			appendSection(builder, 1, "    ", targetSize);
+		}
+		return builder.toString();
+	}
+	
+	private void appendSection(StringBuilder builder, int level, String indent, long targetSize) {
+		if(level >= depth){
+			for(int i = 0; i < LEAF_ENTRIES; i++){
+				builder.append(indent).append("key-").append(i).append(": \"value ").append(keyCount++).append(" of a generated config entry\"\n");
+			}
+			return;
+		}
+		for(int i = 0; i < FAN_OUT && builder.length() < targetSize; i++){
+			builder.append(indent).append("child-").append(i).append(":\n");
+			appendSection(builder, level + 1, indent + "  ", targetSize);
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try(Stream<Path> paths = Files.walk(directory)){
+			for(Path path : paths.sorted(Comparator.reverseOrder()).toList()){
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+	
+	@Benchmark
+	public boolean silentLoad(TreeSize size) {
+		size.keys = keyCount;
+		return external.silentLoad(true);
+	}
+	
+	@Benchmark
+	public boolean silentLoadUnchanged(TreeSize size) {
+		size.keys = keyCount;
+		return external.silentLoad(false);
+	}
+	
+	@Benchmark
+	public Config silentSave(TreeSize size) {
+		size.keys = keyCount;
+		external.markDirty();
+		external.silentSave();
+		return external;
+	}
+	
+	@Benchmark
+	public Config syncWithDefaults(TreeSize size) {
+		size.keys = keyCount;
+		pluginConfig.syncWithDefaults();
+		return pluginConfig;
+	}
+	
+	@Benchmark
+	public Set<String> getKeysDeep(TreeSize size) {
+		size.keys = keyCount;
+		return external.getKeys("root", true);
+	}
+	
+	@Benchmark
+	public Map<String, Object> getEntries(TreeSize size) {
+		size.keys = keyCount;
+		return external.getEntries("root");
+	}
+}
@@ -0,0 +1,80 @@
+package com.wonkglorg.utilitylib.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link JavaPlugin} that can be created without a server for benchmarks. It is created through the initialization constructor of
+ * {@link JavaPlugin} meant for plugins outside a plugin class loader, backed by a {@link NoOpProxy} server whose plugin manager ignores
+ * listeners and which has no players online. Only the data folder, the logger and resources read from a directory are available.
+ */
+public final class HeadlessPlugin extends JavaPlugin{
+	private static final String NAME = "UtilityLibBenchmark";
+	private static final Logger LOGGER = Logger.getLogger(NAME);
+	private static final Server SERVER;
+	/**
+	 * The directory resources are read from, null if the plugin has no resources
+	 */
+	private final Path resourceFolder;
+	
+	static {
+		LOGGER.setLevel(Level.WARNING);
+		SERVER = NoOpProxy.create(Server.class, Map.of("getLogger", args -> LOGGER, "getName", args -> NAME));
+		if(Bukkit.getServer() == null){
+			Bukkit.setServer(SERVER);
+		}
+	}
+	
+	private HeadlessPlugin(Path dataFolder, @Nullable Path resourceFolder) {
+		super(new JavaPluginLoader(SERVER), new PluginDescriptionFile(NAME, "1.0", HeadlessPlugin.class.getName()), dataFolder.toFile(),
+				dataFolder.resolve(NAME + ".jar").toFile());
+		this.resourceFolder = resourceFolder;
+		getLogger().setLevel(Level.WARNING);
+	}
+	
+	/**
+	 * Creates a plugin without resources
+	 *
+	 * @param dataFolder the data folder of the plugin
+	 * @return the created plugin
+	 */
+	public static HeadlessPlugin create(@NotNull Path dataFolder) {
+		return create(dataFolder, null);
+	}
+	
+	/**
+	 * Creates a plugin
+	 *
+	 * @param dataFolder the data folder of the plugin
+	 * @param resourceFolder the directory resources are read from or null if the plugin has no resources
+	 * @return the created plugin
+	 */
+	public static HeadlessPlugin create(@NotNull Path dataFolder, @Nullable Path resourceFolder) {
+		return new HeadlessPlugin(dataFolder, resourceFolder);
+	}
+	
+	@Override
+	public InputStream getResource(@NotNull String filename) {
+		if(resourceFolder == null){
+			return null;
+		}
+		try{
+			return Files.newInputStream(resourceFolder.resolve(filename));
+		} catch(IOException e){
+			return null;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.wonkglorg.utilitylib.benchmark;
+
+import com.wonkglorg.utilitylib.config.io.FsyncPolicy;
+import com.wonkglorg.utilitylib.config.types.Config;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the file size and the load and save times of item stacks stored as serialized maps and as Base64 strings, see
+ * {@link Config#setBinaryItemStacks(boolean)}.
+ *
+ * <p>Real item stacks can not be serialized without a server, so the files are generated: the map form mirrors the keys of
+ * {@code ItemStack#serialize()} without the type marker and the Base64 form encodes the gzip compressed text of the same item, which is
+ * close to the size of the compressed NBT {@code ItemStack#serializeAsBytes()} writes. The results cover the yml parsing and writing,
+ * not the decoding of the items. The file size is reported as the {@code fileBytes} counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ItemStackStorageBenchmark{
+	/**
+	 * How the item stacks are stored in the file
+	 */
+	public enum Storage{
+		MAP,
+		BINARY
+	}
+	
+	@Param({"MAP", "BINARY"})
+	public Storage storage;
+	/**
+	 * Amount of item stacks in the file
+	 */
+	@Param({"64", "4096"})
+	public int items;
+	
+	private Path directory;
+	private Path file;
+	private Config config;
+	/**
+	 * Size of the file as written by the config
+	 */
+	private long fileBytes;
+	
+	/**
+	 * Reports the size of the file alongside the timings
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class FileSize{
+		public long fileBytes;
+	}
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("utilitylib-benchmark");
+		file = directory.resolve("items.yml");
+		StringBuilder builder = new StringBuilder("items:\n");
+		for(int i = 0; i < items; i++){
+			String item = createItem(i, "      ");
+			builder.append("  item-").append(i).append(":");
+			if(storage == Storage.MAP){
+				builder.append("\n").append(item);
+			} else {
+				builder.append(" ").append(Base64.getEncoder().encodeToString(gzip(item))).append("\n");
+			}
+		}
+		Files.writeString(file, builder.toString());
+		
+		config = Config.fromExternalPath(file);
+		config.setFsyncPolicy(FsyncPolicy.NEVER);
+		config.setBinaryItemStacks(storage == Storage.BINARY);
+		//rewrites the file once so its size is the size the config saves
+		config.markDirty();
+		config.silentSave();
+		fileBytes = Files.size(file);
+	}
+	
+	/**
+	 * @return the yml of an enchanted and renamed item in the map form
+	 */
+	private static String createItem(int index, String indent) {
+		String inner = indent + "  ";
+		return indent + "DataVersion: 4189\n" + indent + "id: minecraft:diamond_sword\n" + indent + "count: 1\n" + indent + "schema_version: 1\n" + indent
+				+ "components:\n" + inner + "minecraft:custom_name: '{\"text\":\"Sword " + index + "\",\"italic\":false,\"color\":\"gold\"}'\n" + inner
+				+ "minecraft:lore:\n" + inner + "- '{\"text\":\"Forged for benchmark " + index + "\",\"color\":\"gray\"}'\n" + inner
+				+ "- '{\"text\":\"Second line of lore\",\"color\":\"dark_gray\"}'\n" + inner + "minecraft:enchantments:\n" + inner
+				+ "  minecraft:sharpness: 5\n" + inner + "  minecraft:unbreaking: 3\n" + inner + "minecraft:damage: " + index % 1561 + "\n";
+	}
+	
+	private static byte[] gzip(String text) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(GZIPOutputStream out = new GZIPOutputStream(bytes)){
+			out.write(text.getBytes(StandardCharsets.UTF_8));
+		}
+		return bytes.toByteArray();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try(Stream<Path> paths = Files.walk(directory)){
+			for(Path path : paths.sorted(Comparator.reverseOrder()).toList()){
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+	
+	@Benchmark
+	public boolean silentLoad(FileSize size) {
+		size.fileBytes = fileBytes;
+		return config.silentLoad(true);
+	}
+	
+	@Benchmark
+	public Config silentSave(FileSize size) {
+		config.markDirty();
+		config.silentSave();
+		size.fileBytes = fileBytes;
+		return config;
+	}
+}
@@ -0,0 +1,193 @@
+package com.wonkglorg.utilitylib.benchmark;
+
+import com.wonkglorg.utilitylib.config.LangManager;
+import com.wonkglorg.utilitylib.config.types.LangConfig;
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the cost of requesting, replacing, converting and sending lang messages.
+ *
+ * <p>Run with {@code mvn -P benchmark test-compile exec:exec}, the gc profiler is enabled by default to report the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LangRequestBenchmark{
+	/**
+	 * Amount of message keys in the lang file, requests cycle through them
+	 */
+	private static final int KEYS = 256;
+	
+	/**
+	 * Amount of global replacements registered in the lang manager
+	 */
+	@Param({"0", "16", "256"})
+	public int replacerSize;
+	/**
+	 * Amount of lines per message, 1 for single line values and more for list values
+	 */
+	@Param({"1", "8"})
+	public int lines;
+	/**
+	 * True to request the locale of the lang file, false to request a locale that falls back to the default language
+	 */
+	@Param({"true", "false"})
+	public boolean localeMatch;
+	
+	private Path dataFolder;
+	private LangManager langManager;
+	private Locale locale;
+	private CollectingAudience audience;
+	private int next;
+	
+	/**
+	 * A player receiving the requests, its locale either matches the locale of the request or falls back to the default language
+	 */
+	@State(Scope.Benchmark)
+	public static class PlayerAudience{
+		/**
+		 * True if the player has the locale of the request, false for a locale without a lang file
+		 */
+		@Param({"true", "false"})
+		public boolean playerLocaleMatch;
+		/**
+		 * True to resolve the player's lang file once through {@link LangManager#registerPlayerLocaleCache()}
+		 */
+		@Param({"true", "false"})
+		public boolean playerLocaleCache;
+		
+		private final CollectingAudience messages = new CollectingAudience();
+		private Player player;
+		
+		@Setup(Level.Trial)
+		public void setup(LangRequestBenchmark benchmark) {
+			Locale playerLocale = playerLocaleMatch ? benchmark.locale : Locale.GERMAN;
+			UUID uuid = UUID.randomUUID();
+			player = NoOpProxy.create(Player.class, Map.of("locale", args -> playerLocale, "getUniqueId", args -> uuid, "isOnline", args -> true,
+					"sendMessage", args -> {
+						for(Object arg : args){
+							if(arg instanceof Component message){
+								messages.sendMessage(message);
+							}
+						}
+						return null;
+					}));
+			if(playerLocaleCache){
+				benchmark.langManager.registerPlayerLocaleCache();
+			}
+		}
+	}
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		dataFolder = Files.createTempDirectory("utilitylib-benchmark");
+		Files.writeString(dataFolder.resolve("en.yml"), createLangFile());
+		HeadlessPlugin plugin = HeadlessPlugin.create(dataFolder);
+		langManager = LangManager.createInstance(plugin);
+		langManager.setDefaultLang(Locale.ENGLISH, new LangConfig(plugin, "en.yml"));
+		for(int i = 0; i < replacerSize; i++){
+			langManager.replace("%global-" + i + "%", "global value " + i);
+		}
+		locale = localeMatch ? Locale.ENGLISH : Locale.JAPANESE;
+		audience = new CollectingAudience();
+	}
+	
+	private String createLangFile() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("placeholders:\n  server: \"Benchmark Server\"\n");
+		for(int key = 0; key < KEYS; key++){
+			String line = "<gold>Hello %player%</gold>, welcome to %server%! You received <aqua>%item%</aqua> (%global-" + key % 16 + "%)";
+			if(lines == 1){
+				builder.append("message-").append(key).append(": \"").append(line).append("\"\n");
+				continue;
+			}
+			builder.append("message-").append(key).append(":\n");
+			for(int i = 0; i < lines; i++){
+				builder.append("  - \"").append(i).append(": ").append(line).append("\"\n");
+			}
+		}
+		return builder.toString();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try(Stream<Path> paths = Files.walk(dataFolder)){
+			for(Path path : paths.sorted(Comparator.reverseOrder()).toList()){
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+	
+	private String nextKey() {
+		next = (next + 1) % KEYS;
+		return "message-" + next;
+	}
+	
+	@Benchmark
+	public List<String> request() {
+		return langManager.request(locale, nextKey()).getResult();
+	}
+	
+	@Benchmark
+	public List<String> replace() {
+		return langManager.request(locale, nextKey()).replace("%player%", "Steve").replace("%item%", "Diamond Sword").getResult();
+	}
+	
+	@Benchmark
+	public List<Component> toComponent() {
+		return langManager.request(locale, nextKey()).replace("%player%", "Steve").replace("%item%", "Diamond Sword").toComponent();
+	}
+	
+	@Benchmark
+	public List<Component> toComponentWithoutReplacements() {
+		return langManager.request(locale, nextKey()).toComponent();
+	}
+	
+	@Benchmark
+	public List<Component> toComponentWithComponentReplacement() {
+		return langManager.request(locale, nextKey())
+						  .replace("%player%", "Steve")
+						  .replace("%item%", Component.text("Diamond Sword"))
+						  .toComponent();
+	}
+	
+	@Benchmark
+	public long sendToAudience() {
+		langManager.request(locale, nextKey()).replace("%player%", "Steve").replace("%item%", "Diamond Sword").sendToAudience(audience);
+		return audience.received();
+	}
+	
+	@Benchmark
+	public long sendToPlayer(PlayerAudience player) {
+		langManager.request(locale, nextKey()).replace("%player%", "Steve").replace("%item%", "Diamond Sword").sendToAudience(player.player);
+		return player.messages.received();
+	}
+}
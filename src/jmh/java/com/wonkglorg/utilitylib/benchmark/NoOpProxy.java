@@ -0,0 +1,82 @@
+package com.wonkglorg.utilitylib.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Implements server interfaces for benchmarks without a server. Methods not given return an empty value: interfaces are implemented the
+ * same way, collections are empty, primitives are zero or false, strings are empty and everything else is null.
+ */
+final class NoOpProxy{
+	
+	private NoOpProxy() {
+	}
+	
+	/**
+	 * @param type the interface to implement
+	 * @param methods the implementation of methods by name, receiving the arguments of the call
+	 * @return the created implementation
+	 */
+	static <T> T create(@NotNull Class<T> type, @NotNull Map<String, Function<Object[], Object>> methods) {
+		Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+			Function<Object[], Object> implementation = methods.get(method.getName());
+			if(implementation != null){
+				return implementation.apply(args != null ? args : new Object[0]);
+			}
+			return switch(method.getName()){
+				case "equals" -> self == args[0];
+				case "hashCode" -> System.identityHashCode(self);
+				case "toString" -> "NoOp" + type.getSimpleName();
+				default -> emptyValue(method);
+			};
+		});
+		return type.cast(proxy);
+	}
+	
+	private static Object emptyValue(Method method) {
+		Class<?> type = method.getReturnType();
+		if(type == void.class){
+			return null;
+		}
+		if(type == boolean.class){
+			return false;
+		}
+		if(type == char.class){
+			return '\0';
+		}
+		if(type.isPrimitive()){
+			return switch(type.getName()){
+				case "long" -> 0L;
+				case "float" -> 0f;
+				case "double" -> 0d;
+				case "byte" -> (byte) 0;
+				case "short" -> (short) 0;
+				default -> 0;
+			};
+		}
+		if(type == String.class){
+			return "";
+		}
+		if(type == List.class || type == Collection.class){
+			return List.of();
+		}
+		if(type == Set.class){
+			return Set.of();
+		}
+		if(type == Map.class){
+			return Map.of();
+		}
+		if(type == Optional.class){
+			return Optional.empty();
+		}
+		return type.isInterface() ? create(type, Map.of()) : null;
+	}
+}
@@ -1,15 +1,30 @@
 package com.wonkglorg.utilitylib.config;
 
+import com.wonkglorg.utilitylib.config.io.AtomicFileWriter;
+import com.wonkglorg.utilitylib.config.io.FsyncPolicy;
+import com.wonkglorg.utilitylib.config.io.WriteBehindQueue;
 import com.wonkglorg.utilitylib.config.types.Config;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,10 +50,50 @@ public final class ConfigManager{
 	/**
 	 * The config map which contains all the configs
 	 */
-	private final Map<Class<? extends Config>, Map<String, Config>> configMap = new HashMap<>();
+	private final Map<Class<? extends Config>, Map<String, Config>> configMap = new ConcurrentHashMap<>();
+	/**
+	 * Lookup indexes for all registered configs, replaced as a whole on every registration so reads never lock
+	 */
+	private volatile Index index = Index.EMPTY;
+	/**
+	 * The queue saves are written with in write behind mode, null if saves are written on the calling thread
+	 */
+	private WriteBehindQueue writeBehindQueue;
+	/**
+	 * True if configs are loaded concurrently on virtual threads
+	 */
+	private boolean parallelLoading = false;
 	
 	private static ConfigManager instance;
 	
+	/**
+	 * A config and the key it was registered under
+	 */
+	private record Registration(String key, Config config){}
+	
+	/**
+	 * Immutable lookup indexes of the registered configs
+	 *
+	 * @param registrations all registrations in the order they were added
+	 * @param configs all configs in the order they were added
+	 * @param byKey the configs by their registration key, the latest registration wins if multiple classes use the same key
+	 * @param byName the configs by their lower case file name, the latest registration wins if multiple configs share a file name
+	 */
+	private record Index(List<Registration> registrations, List<Config> configs, Map<String, Config> byKey, Map<String, Config> byName){
+		private static final Index EMPTY = new Index(List.of(), List.of(), Map.of(), Map.of());
+		
+		private static Index of(List<Registration> registrations) {
+			Map<String, Config> byKey = new HashMap<>();
+			Map<String, Config> byName = new HashMap<>();
+			for(Registration registration : registrations){
+				byKey.put(registration.key(), registration.config());
+				byName.put(registration.config().name().toLowerCase(Locale.ROOT), registration.config());
+			}
+			return new Index(List.copyOf(registrations), registrations.stream().map(Registration::config).toList(), Map.copyOf(byKey),
+					Map.copyOf(byName));
+		}
+	}
+	
 	/**
 	 * Creates a new instance of the LangManager
 	 *
@@ -76,37 +131,121 @@ public final class ConfigManager{
 	 * @param config the config to add
 	 */
 	public synchronized void add(@NotNull String name, @NotNull Config config) {
-		configMap.computeIfAbsent(config.getClass(), k -> new HashMap<>());
-		configMap.get(config.getClass()).put(name, config);
+		register(name, config);
 		config.silentLoad();
 	}
 	
 	/**
-	 * Loads all configs
+	 * Adds an already loaded config to the manager
+	 */
+	private void register(String name, Config config) {
+		Config previous = configMap.computeIfAbsent(config.getClass(), k -> new ConcurrentHashMap<>()).put(name, config);
+		config.setWriteBehindQueue(writeBehindQueue);
+		
+		List<Registration> registrations = new ArrayList<>(index.registrations());
+		if(previous != null){
+			registrations.removeIf(registration -> registration.config() == previous && registration.key().equals(name));
+		}
+		registrations.add(new Registration(name, config));
+		index = Index.of(registrations);
+	}
+	
+	/**
+	 * Loads all configs, configs whose file did not change since it was last loaded or saved are skipped, use {@link #load(boolean)} to get
+	 * the amount of configs whose file was parsed
 	 */
 	public synchronized void load() {
-		configMap.values().forEach(configs -> configs.values().forEach(Config::load));
+		load(false);
 	}
 	
 	/**
-	 * Loads all configs silently
+	 * Loads all configs
+	 *
+	 * @param force true to parse every file, false to skip configs whose file did not change since it was last loaded or saved
+	 * @return the amount of configs whose file was parsed
+	 */
+	public synchronized int load(boolean force) {
+		long start = System.nanoTime();
+		List<Config> configs = index.configs();
+		int parsed = loadAll(configs, config -> config.load(force));
+		logger.log(Level.INFO, "Loaded " + configs.size() + " configs (" + parsed + " reparsed) in " + (System.nanoTime() - start) / 1_000_000 + "ms!");
+		return parsed;
+	}
+	
+	/**
+	 * Loads all configs silently, configs whose file did not change since it was last loaded or saved are skipped, use
+	 * {@link #silentLoad(boolean)} to get the amount of configs whose file was parsed
 	 */
 	public synchronized void silentLoad() {
-		configMap.values().forEach(configs -> configs.values().forEach(Config::silentLoad));
+		silentLoad(false);
+	}
+	
+	/**
+	 * Loads all configs silently
+	 *
+	 * @param force true to parse every file, false to skip configs whose file did not change since it was last loaded or saved
+	 * @return the amount of configs whose file was parsed
+	 */
+	public synchronized int silentLoad(boolean force) {
+		return loadAll(index.configs(), config -> config.silentLoad(force));
 	}
 	
 	/**
-	 * Saves all configs
+	 * Loads the configs, concurrently if {@link #isParallelLoading()} is enabled
+	 *
+	 * @param load loads a single config, returns true if its file was parsed
+	 * @return the amount of configs whose file was parsed
+	 */
+	private int loadAll(List<Config> configs, Predicate<Config> load) {
+		var results = ParallelLoader.load(configs, load::test, parallelLoading);
+		int parsed = 0;
+		for(var result : results){
+			if(result.error() != null){
+				logger.log(Level.SEVERE, "Error loading data from " + result.source().name() + "!", result.error());
+			} else if(result.value()){
+				parsed++;
+				logger.log(Level.FINE, "Loaded " + result.source().name() + " in " + result.millis() + "ms");
+			}
+		}
+		return parsed;
+	}
+	
+	/**
+	 * @param parallelLoading true to parse configs concurrently on virtual threads in {@link #load()}, {@link #silentLoad()} and
+	 * {@link #addAllConfigsFromPath(Path)}, configs are still registered in a deterministic order. Configs need to be safe to load off the
+	 * main thread for this.
+	 */
+	public synchronized void setParallelLoading(boolean parallelLoading) {
+		this.parallelLoading = parallelLoading;
+	}
+	
+	public synchronized boolean isParallelLoading() {
+		return parallelLoading;
+	}
+	
+	/**
+	 * Saves all configs, configs that are not dirty are skipped without being serialized
 	 */
 	public synchronized void save() {
-		configMap.values().forEach(configs -> configs.values().forEach(Config::save));
+		index.configs().forEach(Config::save);
 	}
 	
 	/**
-	 * Saves all configs silently
+	 * Saves all configs silently, configs that are not dirty are skipped without being serialized
 	 */
 	public synchronized void silentSave() {
-		configMap.values().forEach(configs -> configs.values().forEach(Config::silentSave));
+		index.configs().forEach(Config::silentSave);
+	}
+	
+	/**
+	 * @return the amount of configs modified since they were last loaded or saved, see {@link Config#isDirty()}
+	 */
+	public int getDirtyCount() {
+		int count = 0;
+		for(Config config : index.configs()){
+			if(config.isDirty()) count++;
+		}
+		return count;
 	}
 	
 	/**
@@ -117,15 +256,8 @@ public final class ConfigManager{
 	 * @param name the name of the config file
 	 * @return the config or null
 	 */
-	public synchronized <T> Config getConfigByName(String name) {
-		for(var configEntry : configMap.values()){
-			for(var entry : configEntry.entrySet()){
-				if(entry.getValue().name().equalsIgnoreCase(name)){
-					return entry.getValue();
-				}
-			}
-		}
-		return null;
+	public <T> Config getConfigByName(String name) {
+		return name != null ? index.byName().get(name.toLowerCase(Locale.ROOT)) : null;
 	}
 	
 	/**
@@ -135,8 +267,9 @@ public final class ConfigManager{
 	 * @return the config or null
 	 */
 	@SuppressWarnings("unchecked")
-	public synchronized <T extends Config> T getConfig(String name, Class<T> clazz) {
-		return (T) configMap.get(clazz).get(name);
+	public <T extends Config> T getConfig(String name, Class<T> clazz) {
+		Map<String, Config> configs = configMap.get(clazz);
+		return configs != null && name != null ? (T) configs.get(name) : null;
 	}
 	
 	/**
@@ -145,23 +278,68 @@ public final class ConfigManager{
 	 * @param name the name of the config
 	 * @return the config or an empty optional if not found
 	 */
-	public synchronized Optional<Config> getConfig(String name) {
-		for(Map<String, Config> configs : configMap.values()){
-			if(configs.containsKey(name)){
-				return Optional.of(configs.get(name));
-			}
+	public Optional<Config> getConfig(String name) {
+		return name != null ? Optional.ofNullable(index.byKey().get(name)) : Optional.empty();
+	}
+	
+	/**
+	 * Enables or disables write behind mode. In write behind mode {@link Config#save()} only serializes the config on the calling thread and
+	 * queues it, the file is written by a background thread which combines repeated saves of the same file into a single write.
+	 *
+	 * @param enabled true to write saves in the background, false to write them on the calling thread again
+	 */
+	public synchronized void setWriteBehind(boolean enabled) {
+		if(enabled == (writeBehindQueue != null)){
+			return;
+		}
+		WriteBehindQueue previous = writeBehindQueue;
+		writeBehindQueue = enabled ? new WriteBehindQueue() : null;
+		index.configs().forEach(config -> config.setWriteBehindQueue(writeBehindQueue));
+		if(previous != null){
+			previous.close();
+		}
+	}
+	
+	/**
+	 * @return true if saves are written in the background
+	 */
+	public synchronized boolean isWriteBehind() {
+		return writeBehindQueue != null;
+	}
+	
+	/**
+	 * Waits for all saves queued in write behind mode and forces all {@link FsyncPolicy#BATCHED} saves to the disk
+	 *
+	 * @return a future completed once every save queued before this call was written and forced to the disk
+	 */
+	public synchronized CompletableFuture<Void> flush() {
+		if(writeBehindQueue != null){
+			return writeBehindQueue.flush();
+		}
+		try{
+			AtomicFileWriter.syncPending();
+			return CompletableFuture.completedFuture(null);
+		} catch(IOException e){
+			return CompletableFuture.failedFuture(e);
 		}
-		return Optional.empty();
 	}
 	
 	/**
 	 * Should be called on shutdown to save all configs back to file
 	 */
 	public void onShutdown() {
-		if(!configMap.isEmpty()){
+		if(!index.configs().isEmpty()){
 			silentSave();
-			logger.log(Level.SEVERE, "Saved " + configMap.size() + " configs!");
+			try{
+				flush().get(30, TimeUnit.SECONDS);
+			} catch(ExecutionException | TimeoutException e){
+				logger.log(Level.WARNING, "Error waiting for configs to be written!", e);
+			} catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+			logger.log(Level.SEVERE, "Saved " + index.configs().size() + " configs!");
 		}
+		setWriteBehind(false);
 	}
 	
 	/**
@@ -176,17 +354,26 @@ public final class ConfigManager{
 		if(files == null){
 			return Map.of();
 		}
-		for(File file : files){
-			if(!file.isFile()){
-				continue;
-			}
-			if(!file.getName().endsWith(".yml")){
+		List<File> configFiles = Arrays.stream(files)
+									   .filter(File::isFile)
+									   .filter(file -> file.getName().endsWith(".yml"))
+									   .sorted(Comparator.comparing(File::getName))
+									   .toList();
+		
+		long start = System.nanoTime();
+		var results = ParallelLoader.load(configFiles, file -> new Config(plugin, file.toPath()), parallelLoading);
+		for(var result : results){
+			File file = result.source();
+			if(result.error() != null){
+				logger.log(Level.SEVERE, "Error loading data from " + file.getName() + "!", result.error());
 				continue;
 			}
-			Config config = new Config(plugin, file.toPath());
-			add(config.name(), config);
+			Config config = result.value();
+			register(config.name(), config);
 			tempConfigs.put(file.getName(), config);
+			logger.log(Level.FINE, "Loaded " + file.getName() + " in " + result.millis() + "ms");
 		}
+		logger.log(Level.INFO, "Loaded " + tempConfigs.size() + " configs from " + path + " in " + (System.nanoTime() - start) / 1_000_000 + "ms!");
 		
 		return tempConfigs;
 	}
@@ -194,18 +381,20 @@ public final class ConfigManager{
 	/**
 	 * Gets all configs stored in the manager
 	 *
-	 * @return a collection of all configs
+	 * @return an immutable snapshot of all configs in the order they were added
 	 */
 	public Collection<Config> getConfigs() {
-		return configMap.values().stream().flatMap(map -> map.values().stream()).toList();
+		return index.configs();
 	}
 	
 	/**
 	 * Gets all configs stored in the manager
 	 *
-	 * @return a collection of all configs
+	 * @return an immutable snapshot of all configs by their class and key, use {@link #add(String, Config)} to add configs
 	 */
 	public Map<Class<? extends Config>, Map<String, Config>> getConfigMap() {
-		return configMap;
+		Map<Class<? extends Config>, Map<String, Config>> snapshot = new HashMap<>();
+		configMap.forEach((clazz, configs) -> snapshot.put(clazz, Map.copyOf(configs)));
+		return Map.copyOf(snapshot);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,278 @@
+package com.wonkglorg.utilitylib.config;
+
+import com.wonkglorg.utilitylib.config.types.Config;
+import com.wonkglorg.utilitylib.config.types.LangConfig;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Watches the plugin data folder and reloads registered configs when their file is edited.
+ *
+ * <p>Changes to the same file are debounced so an editor writing a file in multiple steps only causes a single reload. Language configs
+ * are reloaded off the main thread since requests read their snapshot, other configs are parsed off the main thread and only the parsed
+ * values are copied into the config on the main thread. Files that did not change since the config last loaded or saved them (for example
+ * after the config's own save) are not parsed again. Configs with unsaved changes are never reloaded so the changes are not lost.
+ *
+ * <pre>
+ *     ConfigWatcher watcher = new ConfigWatcher(plugin)
+ *             .watch(configManager::getConfigs)
+ *             .watch(langManager::getLangConfigs)
+ *             .onReload(config -> getLogger().info("Reloaded " + config.name()));
+ *     watcher.start();
+ *     //onDisable
+ *     watcher.close();
+ * </pre>
+ */
+@SuppressWarnings("unused")
+public final class ConfigWatcher implements AutoCloseable{
+	private static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(500);
+	private final JavaPlugin plugin;
+	private final Logger logger;
+	/**
+	 * How long a file has to be unchanged before it is reloaded
+	 */
+	private final Duration debounce;
+	/**
+	 * Provides the configs that are reloaded when their file changes
+	 */
+	private final List<Supplier<? extends Collection<? extends Config>>> sources = new CopyOnWriteArrayList<>();
+	/**
+	 * Called on the main thread after a config was reloaded
+	 */
+	private final List<Consumer<Config>> listeners = new CopyOnWriteArrayList<>();
+	/**
+	 * The scheduled reload per changed file, rescheduled on every change within the debounce time
+	 */
+	private final Map<Path, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+	/**
+	 * The directory each registered watch key belongs to
+	 */
+	private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+	private WatchService watchService;
+	private ScheduledExecutorService reloader;
+	
+	/**
+	 * Creates a watcher with a debounce time of 500ms
+	 *
+	 * @param plugin the plugin whose data folder is watched
+	 */
+	public ConfigWatcher(@NotNull JavaPlugin plugin) {
+		this(plugin, DEFAULT_DEBOUNCE);
+	}
+	
+	/**
+	 * @param plugin the plugin whose data folder is watched
+	 * @param debounce how long a file has to be unchanged before it is reloaded
+	 */
+	public ConfigWatcher(@NotNull JavaPlugin plugin, @NotNull Duration debounce) {
+		this.plugin = plugin;
+		this.logger = plugin.getLogger();
+		this.debounce = debounce;
+	}
+	
+	/**
+	 * Adds configs to reload when their file changes, the supplier is queried on every change so configs registered later are included
+	 *
+	 * @param configs supplies the configs to watch
+	 * @return this watcher
+	 */
+	public ConfigWatcher watch(@NotNull Supplier<? extends Collection<? extends Config>> configs) {
+		sources.add(configs);
+		return this;
+	}
+	
+	/**
+	 * Adds a listener called on the main thread after a config was reloaded
+	 *
+	 * @param listener the listener to add
+	 * @return this watcher
+	 */
+	public ConfigWatcher onReload(@NotNull Consumer<Config> listener) {
+		listeners.add(listener);
+		return this;
+	}
+	
+	/**
+	 * Starts watching the plugin data folder and all its sub directories
+	 *
+	 * @throws IOException if the data folder could not be watched
+	 */
+	public synchronized void start() throws IOException {
+		if(watchService != null){
+			return;
+		}
+		watchService = plugin.getDataFolder().toPath().getFileSystem().newWatchService();
+		reloader = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("UtilityLib-ConfigReloader").daemon(true).factory());
+		registerAll(plugin.getDataFolder().toPath());
+		Thread.ofPlatform().name("UtilityLib-ConfigWatcher").daemon(true).start(this::watchLoop);
+	}
+	
+	private void registerAll(Path root) throws IOException {
+		try(Stream<Path> paths = Files.walk(root)){
+			for(Path directory : paths.filter(Files::isDirectory).toList()){
+				WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+				directories.put(key, directory);
+			}
+		}
+	}
+	
+	private void watchLoop() {
+		WatchService service = watchService;
+		while(true){
+			WatchKey key;
+			try{
+				key = service.take();
+			} catch(InterruptedException | ClosedWatchServiceException e){
+				return;
+			}
+			Path directory = directories.get(key);
+			if(directory != null){
+				for(WatchEvent<?> event : key.pollEvents()){
+					if(event.kind() == StandardWatchEventKinds.OVERFLOW || !(event.context() instanceof Path name)){
+						continue;
+					}
+					Path changed = directory.resolve(name);
+					if(event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)){
+						try{
+							registerAll(changed);
+						} catch(IOException | ClosedWatchServiceException e){
+							logger.log(Level.WARNING, "Could not watch directory " + changed + "!", e);
+						}
+					} else {
+						schedule(changed.toAbsolutePath().normalize());
+					}
+				}
+			}
+			if(!key.reset()){
+				directories.remove(key);
+			}
+		}
+	}
+	
+	private void schedule(Path path) {
+		pending.compute(path, (p, previous) -> {
+			if(previous != null){
+				previous.cancel(false);
+			}
+			return reloader.schedule(() -> reload(p), debounce.toMillis(), TimeUnit.MILLISECONDS);
+		});
+	}
+	
+	private void reload(Path path) {
+		pending.remove(path);
+		List<Config> configs = findConfigs(path);
+		if(configs.isEmpty()){
+			return;
+		}
+		for(Config config : configs){
+			if(config.isDirty()){
+				logger.log(Level.WARNING, "Not reloading " + config.name() + " since it has unsaved changes!");
+				continue;
+			}
+			if(config instanceof LangConfig langConfig){
+				//requests read the snapshot which is only replaced once the load completed, unchanged files are not parsed
+				if(langConfig.silentLoad(false)){
+					runOnMainThread(() -> notifyListeners(langConfig));
+				}
+				continue;
+			}
+			Config.ParsedFile parsedFile;
+			try{
+				parsedFile = config.parseChangedFile();
+			} catch(NoSuchFileException e){
+				continue;
+			} catch(IOException | InvalidConfigurationException e){
+				logger.log(Level.WARNING, "Error reloading " + config.name() + "!", e);
+				continue;
+			}
+			//the file was written by the config itself or did not change
+			if(parsedFile == null){
+				continue;
+			}
+			runOnMainThread(() -> {
+				if(config.hasUnsavedChanges()){
+					logger.log(Level.WARNING, "Not reloading " + config.name() + " since it has unsaved changes!");
+					return;
+				}
+				if(config.applyParsedFile(parsedFile)){
+					notifyListeners(config);
+				}
+			});
+		}
+	}
+	
+	private List<Config> findConfigs(Path path) {
+		List<Config> found = new ArrayList<>();
+		for(var source : sources){
+			for(Config config : source.get()){
+				if(!found.contains(config) && config.file().toPath().toAbsolutePath().normalize().equals(path)){
+					found.add(config);
+				}
+			}
+		}
+		return found;
+	}
+	
+	private void notifyListeners(Config config) {
+		logger.log(Level.INFO, "Reloaded " + config.name() + "!");
+		for(Consumer<Config> listener : listeners){
+			try{
+				listener.accept(config);
+			} catch(RuntimeException e){
+				logger.log(Level.SEVERE, "Error in reload listener for " + config.name() + "!", e);
+			}
+		}
+	}
+	
+	private void runOnMainThread(Runnable runnable) {
+		if(plugin.isEnabled()){
+			plugin.getServer().getScheduler().runTask(plugin, runnable);
+		}
+	}
+	
+	/**
+	 * Stops watching, reloads that are still waiting for their debounce time are dropped
+	 */
+	@Override
+	public synchronized void close() {
+		if(watchService == null){
+			return;
+		}
+		try{
+			watchService.close();
+		} catch(IOException e){
+			logger.log(Level.WARNING, "Error closing config watcher!", e);
+		}
+		reloader.shutdownNow();
+		pending.clear();
+		directories.clear();
+		watchService = null;
+	}
+}
@@ -1,19 +1,38 @@
 package com.wonkglorg.utilitylib.config;
 
 import com.wonkglorg.utilitylib.config.lang.LangRequest;
+import com.wonkglorg.utilitylib.config.lang.LangSnapshot;
+import com.wonkglorg.utilitylib.config.lang.MissingKeyTracker;
+import com.wonkglorg.utilitylib.config.lang.Replacer;
 import com.wonkglorg.utilitylib.config.types.Config;
 import com.wonkglorg.utilitylib.config.types.LangConfig;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLocaleChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.Contract;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -41,10 +60,46 @@ public final class LangManager{
 	 * The replacer map which contains all the values to be replaced when called
 	 */
 	private final Map<String, String> replacerMap = new ConcurrentHashMap<>();
+	/**
+	 * Incremented whenever the replacer map changes so configs know when to rebuild their replacers
+	 */
+	private volatile long replacerGeneration = 0;
+	/**
+	 * Replacer built from the replacer map, null until requested after a change
+	 */
+	private volatile Replacer replacer;
 	/**
 	 * The default language
 	 */
 	private Locale defaultLang = Locale.ENGLISH;
+	/**
+	 * Resolution table from any requested locale to the config to use, null until requested after the registered languages changed
+	 */
+	private volatile LocaleTable localeTable;
+	/**
+	 * The resolved config of each online player, only maintained once {@link #registerPlayerLocaleCache()} was called
+	 */
+	private final Map<UUID, PlayerLang> playerConfigs = new ConcurrentHashMap<>();
+	/**
+	 * If the player locale listener is registered
+	 */
+	private volatile boolean playerLocaleCache = false;
+	/**
+	 * If keys missing in a lang file are looked up in the default lang file
+	 */
+	private volatile boolean keyFallback = true;
+	/**
+	 * Counts requests that could not be answered from their lang file
+	 */
+	private final MissingKeyTracker missingKeyTracker = new MissingKeyTracker();
+	/**
+	 * The task periodically logging the misses of {@link #missingKeyTracker}, null if not scheduled
+	 */
+	private BukkitTask missingKeySummaryTask;
+	/**
+	 * True if language files are loaded concurrently on virtual threads
+	 */
+	private boolean parallelLoading = false;
 	/**
 	 * The JavaPlugin instance
 	 */
@@ -88,6 +143,33 @@ public final class LangManager{
 		return instance;
 	}
 	
+	/**
+	 * Precomputed locale resolution, locales not known when the table was built are resolved once and added to it
+	 *
+	 * @param configs the config to use for each requested locale
+	 * @param byLanguage the config of the first registered locale (by language tag) of each language
+	 * @param fallback the config to use if nothing matches the requested language
+	 * @param locales the locale each config is registered for, the default locale or else the first by language tag if it has multiple
+	 */
+	private record LocaleTable(Map<Locale, Optional<LangConfig>> configs, Map<String, LangConfig> byLanguage, Optional<LangConfig> fallback,
+							   Map<LangConfig, Locale> locales){}
+	
+	/**
+	 * The config resolved for a player
+	 *
+	 * @param table the locale table the config was resolved from, the entry is outdated once the table was replaced
+	 * @param resolved the resolved config
+	 */
+	private record PlayerLang(LocaleTable table, PlayerLangConfig resolved){}
+	
+	/**
+	 * The language config resolved for a player's locale
+	 *
+	 * @param config the language config or empty if none could be found
+	 * @param localeFallback true if the config is not registered for the player's locale and was resolved as a fallback of another locale
+	 */
+	public record PlayerLangConfig(Optional<LangConfig> config, boolean localeFallback){}
+	
 	private LangManager(JavaPlugin plugin) {
 		this.plugin = plugin;
 		logger = plugin.getLogger();
@@ -99,8 +181,25 @@ public final class LangManager{
 	 * @param replace the value to be replaced
 	 * @param with the value to replace the original value with
 	 */
-	public void replace(String replace, String with) {
+	public synchronized void replace(String replace, String with) {
 		replacerMap.put(replace, with);
+		replacerChanged();
+	}
+	
+	/**
+	 * Removes a global replacement added by {@link #replace(String, String)}
+	 *
+	 * @param replace the value that should no longer be replaced
+	 */
+	public synchronized void removeReplacement(String replace) {
+		if(replacerMap.remove(replace) != null){
+			replacerChanged();
+		}
+	}
+	
+	private void replacerChanged() {
+		replacer = null;
+		replacerGeneration++;
 	}
 	
 	/**
@@ -112,6 +211,7 @@ public final class LangManager{
 	public synchronized void setDefaultLang(Locale defaultLang, LangConfig defaultConfig) {
 		langMap.put(defaultLang, defaultConfig);
 		this.defaultLang = defaultLang;
+		languagesChanged();
 		defaultConfig.silentLoad();
 	}
 	
@@ -122,6 +222,7 @@ public final class LangManager{
 	 */
 	public synchronized void setDefaultLang(Locale defaultLang) {
 		this.defaultLang = defaultLang;
+		languagesChanged();
 	}
 	
 	/**
@@ -131,11 +232,19 @@ public final class LangManager{
 	 * @param languageConfig the language config
 	 */
 	public synchronized void addLanguage(LangConfig languageConfig, Locale locale, Locale... extraLocale) {
+		register(languageConfig, locale, extraLocale);
+		languageConfig.silentLoad();
+	}
+	
+	/**
+	 * Adds an already loaded language config for the given locales
+	 */
+	private void register(LangConfig languageConfig, Locale locale, Locale... extraLocale) {
 		langMap.putIfAbsent(locale, languageConfig);
 		for(Locale loc : extraLocale){
 			langMap.putIfAbsent(loc, languageConfig);
 		}
-		languageConfig.silentLoad();
+		languagesChanged();
 	}
 	
 	/**
@@ -153,45 +262,95 @@ public final class LangManager{
 			logger.log(Level.WARNING, NO_LOCALE_FOUND_FOR_FILE + langName);
 			return;
 		}
-		for(Locale locale : locales){
-			addLanguage(languageConfig, locale);
-		}
+		List<Locale> allLocales = new ArrayList<>(locales);
 		for(String extraLangName : extraLangNames){
 			locales = shortNameToLocaleMapper.get(extraLangName);
 			if(locales == null){
 				logger.log(Level.WARNING, NO_LOCALE_FOUND_FOR_FILE + extraLangName);
 				continue;
 			}
-			for(Locale locale : locales){
-				addLanguage(languageConfig, locale);
-			}
+			allLocales.addAll(locales);
 		}
+		if(allLocales.isEmpty()){
+			return;
+		}
+		register(languageConfig, allLocales.getFirst(), allLocales.subList(1, allLocales.size()).toArray(Locale[]::new));
+		languageConfig.silentLoad();
 	}
 	
 	/**
 	 * Saves all the language files
 	 */
 	public synchronized void save() {
-		langMap.values().forEach(Config::save);
+		distinctConfigs().forEach(Config::save);
 	}
 	
 	public synchronized void silentSave() {
-		langMap.values().forEach(Config::silentSave);
+		distinctConfigs().forEach(Config::silentSave);
 	}
 	
 	public synchronized void load() {
-		langMap.values().forEach(Config::silentLoad);
-		
+		long start = System.nanoTime();
+		List<LangConfig> configs = distinctConfigs();
+		int parsed = loadAll(configs);
+		logger.log(Level.INFO, "Loaded " + configs.size() + " language files (" + parsed + " reparsed) in " + (System.nanoTime() - start) / 1_000_000 + "ms!");
 	}
 	
 	public synchronized void silentLoad() {
-		langMap.values().forEach(Config::silentLoad);
+		loadAll(distinctConfigs());
 		
 		if(defaultLang == null){
 			logger.log(Level.WARNING, "No default language selected!");
 		}
 	}
 	
+	/**
+	 * Loads every given language file, concurrently if {@link #isParallelLoading()} is enabled, files that did not change since they were
+	 * last loaded are skipped
+	 *
+	 * @return the amount of files parsed
+	 */
+	private int loadAll(List<LangConfig> configs) {
+		var results = ParallelLoader.load(configs, config -> config.silentLoad(false), parallelLoading);
+		int parsed = 0;
+		for(var result : results){
+			if(result.error() != null){
+				logger.log(Level.SEVERE, "Error loading data from " + result.source().name() + "!", result.error());
+			} else if(result.value()){
+				parsed++;
+				logger.log(Level.FINE, "Loaded " + result.source().name() + " in " + result.millis() + "ms");
+			}
+		}
+		return parsed;
+	}
+	
+	/**
+	 * @return every registered language config once, a config shared by multiple locales is only contained once
+	 */
+	public synchronized List<LangConfig> getLangConfigs() {
+		return distinctConfigs();
+	}
+	
+	/**
+	 * @return every registered config once, a config shared by multiple locales is only contained once
+	 */
+	private List<LangConfig> distinctConfigs() {
+		Set<LangConfig> configs = Collections.newSetFromMap(new IdentityHashMap<>());
+		return langMap.values().stream().filter(configs::add).toList();
+	}
+	
+	/**
+	 * @param parallelLoading true to parse language files concurrently on virtual threads in {@link #load()}, {@link #silentLoad()} and
+	 * {@link #addAllLangFilesFromPath(Path)}, files are still registered in a deterministic order
+	 */
+	public synchronized void setParallelLoading(boolean parallelLoading) {
+		this.parallelLoading = parallelLoading;
+	}
+	
+	public synchronized boolean isParallelLoading() {
+		return parallelLoading;
+	}
+	
 	public synchronized Config getDefaultLang() {
 		try{
 			return langMap.get(defaultLang);
@@ -212,6 +371,8 @@ public final class LangManager{
 	
 	/**
 	 * Adds all language files from a given path, the path should be relative to the plugin data folder, the language files should be named after the language they represent as per {@link Locale#getLanguage()} standard naming conventions (this does not copy them from the resources folder should be used to let the plugin user add more languages on their own without code changes)
+	 * <br>
+	 * Each file is loaded once and shared by all locales of its language.
 	 */
 	public synchronized void addAllLangFilesFromPath(Path path) {
 		File[] files = Path.of(plugin.getDataFolder().getPath(), path.toString()).toFile().listFiles();
@@ -219,6 +380,7 @@ public final class LangManager{
 			logger.log(Level.WARNING, "No available language files loaded");
 			return;
 		}
+		List<File> langFiles = new ArrayList<>();
 		for(File file : files){
 			if(!file.isFile()){
 				continue;
@@ -226,19 +388,32 @@ public final class LangManager{
 			if(!file.getName().endsWith(".yml")){
 				continue;
 			}
-			
-			Set<Locale> locales = shortNameToLocaleMapper.get(file.getName().replace(".yml", ""));
-			if(locales == null){
+			if(!shortNameToLocaleMapper.containsKey(file.getName().replace(".yml", ""))){
 				logger.log(Level.WARNING, NO_LOCALE_FOUND_FOR_FILE + file.getName());
 				continue;
 			}
-			
-			for(Locale locale : locales){
-				LangConfig langConfig = new LangConfig(plugin, path.resolve(file.getName()).toString());
-				addLanguage(langConfig, locale);
+			langFiles.add(file);
+		}
+		langFiles.sort(Comparator.comparing(File::getName));
+		
+		long start = System.nanoTime();
+		var results = ParallelLoader.load(langFiles, file -> new LangConfig(plugin, path.resolve(file.getName()).toString()), parallelLoading);
+		for(var result : results){
+			File file = result.source();
+			if(result.error() != null){
+				logger.log(Level.SEVERE, "Error loading data from " + file.getName() + "!", result.error());
+				continue;
 			}
+			LangConfig langConfig = result.value();
+			Set<Locale> locales = shortNameToLocaleMapper.get(file.getName().replace(".yml", ""));
+			Locale[] sortedLocales = locales.stream().sorted(Comparator.comparing(Locale::toLanguageTag)).toArray(Locale[]::new);
+			register(langConfig, sortedLocales[0], Arrays.copyOfRange(sortedLocales, 1, sortedLocales.length));
 			
+			LangSnapshot snapshot = langConfig.getSnapshot();
+			logger.log(Level.INFO, "Loaded language file " + file.getName() + " for " + sortedLocales.length + " locales in " + result.millis() + "ms ("
+					+ snapshot.values().size() + " keys, ~" + snapshot.estimatedSize() / 1024 + " KB)");
 		}
+		logger.log(Level.INFO, "Loaded " + results.size() + " language files in " + (System.nanoTime() - start) / 1_000_000 + "ms");
 	}
 	
 	/**
@@ -286,28 +461,208 @@ public final class LangManager{
 	}
 	
 	/**
-	 * Gets any valid language config to use (first checks if the locale is present, then the default locale, then any locale)
+	 * Sends a request to all online players, the message is rendered once per language instead of once per player
 	 *
-	 * @param locale the locale to get the language config for
+	 * @param request the request to send
+	 */
+	public void broadcast(final LangRequest request) {
+		request.sendToAudiences(plugin.getServer().getOnlinePlayers());
+	}
+	
+	/**
+	 * Gets any valid language config to use, locales are resolved in the following order:
+	 * <ol>
+	 *     <li>the exact locale</li>
+	 *     <li>the locale's language without region or variant (e.g. de_AT -> de)</li>
+	 *     <li>the first registered locale of the same language sorted by language tag</li>
+	 *     <li>the default locale</li>
+	 *     <li>the first registered locale sorted by language tag</li>
+	 * </ol>
+	 *
+	 * @param locale the locale to get the language config for (null for the default)
 	 * @return the language config or empty if none could be found
 	 */
 	public Optional<LangConfig> getAnyValidLangConfig(final Locale locale) {
-		if(langMap.isEmpty()){
-			return Optional.empty();
+		return getAnyValidLangConfig(getLocaleTable(), locale);
+	}
+	
+	private Optional<LangConfig> getAnyValidLangConfig(LocaleTable table, Locale locale) {
+		if(locale == null){
+			return table.fallback();
+		}
+		Optional<LangConfig> config = table.configs().get(locale);
+		if(config == null){
+			config = table.configs().computeIfAbsent(locale, key -> resolve(table.byLanguage(), table.fallback(), key));
+		}
+		return config;
+	}
+	
+	/**
+	 * @param config the lang config to get the locale of
+	 * @return the locale the config is registered for, the default locale if it is registered for multiple locales including it, null if it
+	 * is not registered
+	 */
+	public Locale getLocale(final LangConfig config) {
+		return getLocaleTable().locales().get(config);
+	}
+	
+	/**
+	 * @param locale the requested locale
+	 * @param config the lang config the locale resolved to
+	 * @return true if the config is not registered for the locale itself and was resolved as a fallback of another locale
+	 */
+	public boolean isLocaleFallback(final Locale locale, final LangConfig config) {
+		return locale != null && langMap.get(locale) != config;
+	}
+	
+	private LocaleTable getLocaleTable() {
+		LocaleTable table = localeTable;
+		if(table == null){
+			synchronized(this){
+				if(localeTable == null){
+					localeTable = buildLocaleTable();
+				}
+				table = localeTable;
+			}
+		}
+		return table;
+	}
+	
+	/**
+	 * Builds the resolution table for all available and registered locales
+	 */
+	private LocaleTable buildLocaleTable() {
+		List<Locale> registered = langMap.keySet().stream().sorted(Comparator.comparing(Locale::toLanguageTag)).toList();
+		Map<String, LangConfig> byLanguage = new HashMap<>();
+		for(Locale registeredLocale : registered){
+			byLanguage.putIfAbsent(registeredLocale.getLanguage(), langMap.get(registeredLocale));
 		}
 		
-		if(locale != null && langMap.containsKey(locale)){
-			return Optional.of(langMap.get(locale));
+		LangConfig fallbackConfig = langMap.get(defaultLang);
+		if(fallbackConfig == null && !registered.isEmpty()){
+			fallbackConfig = langMap.get(registered.getFirst());
 		}
+		Optional<LangConfig> fallback = Optional.ofNullable(fallbackConfig);
 		
+		Map<Locale, Optional<LangConfig>> configs = new ConcurrentHashMap<>();
+		for(Locale available : Locale.getAvailableLocales()){
+			configs.put(available, resolve(byLanguage, fallback, available));
+		}
+		for(Locale registeredLocale : registered){
+			configs.put(registeredLocale, resolve(byLanguage, fallback, registeredLocale));
+		}
+		Map<LangConfig, Locale> locales = new IdentityHashMap<>();
 		if(langMap.containsKey(defaultLang)){
-			return Optional.of(langMap.get(defaultLang));
+			locales.put(langMap.get(defaultLang), defaultLang);
+		}
+		for(Locale registeredLocale : registered){
+			locales.putIfAbsent(langMap.get(registeredLocale), registeredLocale);
+		}
+		return new LocaleTable(configs, byLanguage, fallback, locales);
+	}
+	
+	/**
+	 * Drops the locale resolution table and any config resolved from it
+	 */
+	private void languagesChanged() {
+		localeTable = null;
+		playerConfigs.clear();
+	}
+	
+	/**
+	 * Registers a listener keeping the resolved config of every online player cached, so messages sent to players skip resolving their locale.
+	 * The cache is filled on join, updated when a player changes their client language and evicted on quit.
+	 * <br>
+	 * Has to be called once the plugin is enabled (e.g. in onEnable).
+	 */
+	public synchronized void registerPlayerLocaleCache() {
+		if(playerLocaleCache){
+			return;
+		}
+		plugin.getServer().getPluginManager().registerEvents(new PlayerLocaleListener(), plugin);
+		playerLocaleCache = true;
+		for(Player player : plugin.getServer().getOnlinePlayers()){
+			playerConfigs.put(player.getUniqueId(), resolvePlayer(player.locale()));
+		}
+	}
+	
+	/**
+	 * Gets the language config to use for a player, cached per player if {@link #registerPlayerLocaleCache()} was called
+	 *
+	 * @param player the player to get the language config for
+	 * @return the language config or empty if none could be found
+	 */
+	public Optional<LangConfig> getLangConfig(final Player player) {
+		return getPlayerLangConfig(player).config();
+	}
+	
+	/**
+	 * Gets the language config to use for a player and if it is a fallback of another locale, cached per player if
+	 * {@link #registerPlayerLocaleCache()} was called
+	 *
+	 * @param player the player to get the language config for
+	 * @return the resolved language config
+	 */
+	public PlayerLangConfig getPlayerLangConfig(final Player player) {
+		if(!playerLocaleCache){
+			return resolvePlayer(player.locale()).resolved();
+		}
+		PlayerLang entry = playerConfigs.get(player.getUniqueId());
+		//entries resolved from a table that was replaced since are resolved again, even if they were cached after the languages changed
+		if(entry == null || entry.table() != localeTable){
+			entry = resolvePlayer(player.locale());
+			if(player.isOnline()){
+				playerConfigs.put(player.getUniqueId(), entry);
+			}
+		}
+		return entry.resolved();
+	}
+	
+	/**
+	 * @param locale the locale of the player
+	 * @return the config of the locale resolved from the current locale table
+	 */
+	private PlayerLang resolvePlayer(Locale locale) {
+		LocaleTable table = getLocaleTable();
+		Optional<LangConfig> config = getAnyValidLangConfig(table, locale);
+		return new PlayerLang(table, new PlayerLangConfig(config, config.isPresent() && isLocaleFallback(locale, config.get())));
+	}
+	
+	/**
+	 * Keeps {@link #playerConfigs} up to date with the players online and their locale
+	 */
+	private final class PlayerLocaleListener implements Listener{
+		
+		@EventHandler(priority = EventPriority.MONITOR)
+		public void onJoin(PlayerJoinEvent event) {
+			Player player = event.getPlayer();
+			playerConfigs.put(player.getUniqueId(), resolvePlayer(player.locale()));
+		}
+		
+		@EventHandler(priority = EventPriority.MONITOR)
+		public void onLocaleChange(PlayerLocaleChangeEvent event) {
+			playerConfigs.put(event.getPlayer().getUniqueId(), resolvePlayer(event.locale()));
+		}
+		
+		@EventHandler(priority = EventPriority.MONITOR)
+		public void onQuit(PlayerQuitEvent event) {
+			playerConfigs.remove(event.getPlayer().getUniqueId());
+		}
+	}
+	
+	private Optional<LangConfig> resolve(Map<String, LangConfig> byLanguage, Optional<LangConfig> fallback, Locale locale) {
+		LangConfig config = langMap.get(locale);
+		if(config == null){
+			config = langMap.get(Locale.of(locale.getLanguage()));
+		}
+		if(config == null){
+			config = byLanguage.get(locale.getLanguage());
 		}
-		return Optional.of(langMap.values().iterator().next());
+		return config != null ? Optional.of(config) : fallback;
 	}
 	
 	/**
-	 * Gets all stored languages
+	 * Gets all stored languages, use {@link #addLanguage(LangConfig, Locale, Locale...)} to add languages so the locale resolution is updated
 	 *
 	 * @return the map of all languages
 	 */
@@ -335,7 +690,80 @@ public final class LangManager{
 		return logger;
 	}
 	
+	/**
+	 * @return an unmodifiable view of the global replacements, use {@link #replace(String, String)} and {@link #removeReplacement(String)} to modify them
+	 */
 	public Map<String, String> getReplacerMap() {
-		return replacerMap;
+		return Collections.unmodifiableMap(replacerMap);
+	}
+	
+	/**
+	 * @return the replacer for all global replacements
+	 */
+	public Replacer getReplacer() {
+		Replacer current = replacer;
+		if(current == null){
+			synchronized(this){
+				if(replacer == null){
+					replacer = Replacer.of(replacerMap);
+				}
+				current = replacer;
+			}
+		}
+		return current;
+	}
+	
+	/**
+	 * @param keyFallback true to answer requests for keys missing in a lang file from the default lang file, false to use the default value of
+	 * the request instead
+	 */
+	public void setKeyFallback(boolean keyFallback) {
+		this.keyFallback = keyFallback;
+	}
+	
+	public boolean isKeyFallback() {
+		return keyFallback;
+	}
+	
+	/**
+	 * Gets the config keys missing in other lang files are taken from, the default lang or else the first registered by language tag
+	 *
+	 * @return the fallback config or empty if key fallback is disabled or no language is registered
+	 */
+	public Optional<LangConfig> getFallbackLangConfig() {
+		return keyFallback ? getLocaleTable().fallback() : Optional.empty();
+	}
+	
+	/**
+	 * @return the tracker counting requests that could not be answered from their lang file
+	 */
+	public MissingKeyTracker getMissingKeyTracker() {
+		return missingKeyTracker;
+	}
+	
+	/**
+	 * Periodically logs the requests that could not be answered from their lang file since the last summary, has to be called once the plugin is
+	 * enabled (e.g. in onEnable)
+	 *
+	 * @param interval the time between summaries or null to stop logging summaries
+	 */
+	public synchronized void setMissingKeySummaryInterval(Duration interval) {
+		if(missingKeySummaryTask != null){
+			missingKeySummaryTask.cancel();
+			missingKeySummaryTask = null;
+		}
+		if(interval == null){
+			return;
+		}
+		long ticks = Math.max(interval.toMillis() / 50, 1);
+		missingKeySummaryTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, () -> missingKeyTracker.logSummary(logger), ticks,
+				ticks);
+	}
+	
+	/**
+	 * @return a counter that changes whenever the global replacements change
+	 */
+	public long getReplacerGeneration() {
+		return replacerGeneration;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.wonkglorg.utilitylib.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Runs config loading tasks either one after another or concurrently on virtual threads, the results are always returned in the order of
+ * their sources so registration stays deterministic
+ */
+final class ParallelLoader{
+	
+	private ParallelLoader() {
+	}
+	
+	/**
+	 * The outcome of loading a single source
+	 *
+	 * @param source the source that was loaded
+	 * @param value the loaded value or null if loading failed
+	 * @param error the error thrown while loading or null if it succeeded
+	 * @param nanos the time it took to load the source in nanoseconds
+	 */
+	record Result<S, T>(S source, T value, Throwable error, long nanos){
+		long millis() {
+			return nanos / 1_000_000;
+		}
+	}
+	
+	/**
+	 * Loads all sources
+	 *
+	 * @param sources the sources to load
+	 * @param loader loads a single source, has to be thread safe if parallel is true
+	 * @param parallel true to load all sources concurrently on virtual threads, false to load them on the calling thread
+	 * @return the results in the order of the sources
+	 */
+	static <S, T> List<Result<S, T>> load(List<S> sources, Function<S, T> loader, boolean parallel) {
+		List<Result<S, T>> results = new ArrayList<>(sources.size());
+		if(!parallel || sources.size() < 2){
+			for(S source : sources){
+				results.add(loadOne(source, loader));
+			}
+			return results;
+		}
+		
+		List<CompletableFuture<Result<S, T>>> futures = new ArrayList<>(sources.size());
+		try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()){
+			for(S source : sources){
+				futures.add(CompletableFuture.supplyAsync(() -> loadOne(source, loader), executor));
+			}
+		}
+		for(CompletableFuture<Result<S, T>> future : futures){
+			results.add(future.join());
+		}
+		return results;
+	}
+	
+	private static <S, T> Result<S, T> loadOne(S source, Function<S, T> loader) {
+		long start = System.nanoTime();
+		try{
+			T value = loader.apply(source);
+			return new Result<>(source, value, null, System.nanoTime() - start);
+		} catch(RuntimeException e){
+			return new Result<>(source, null, e, System.nanoTime() - start);
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package com.wonkglorg.utilitylib.config.io;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Replaces files atomically by writing the new content to a temporary file next to the target and moving it over the target. Readers and
+ * a crash during the write only ever see the old or the new content, never a partially written file.
+ */
+public final class AtomicFileWriter{
+	/**
+	 * Files written with {@link FsyncPolicy#BATCHED} that were not yet forced to the disk
+	 */
+	private static final Set<Path> PENDING_SYNC = ConcurrentHashMap.newKeySet();
+	
+	private AtomicFileWriter() {
+	}
+	
+	/**
+	 * Atomically replaces the content of the file
+	 *
+	 * @param target the file to write
+	 * @param data the new content, written as UTF-8
+	 * @param policy when the file is forced to the disk
+	 * @throws IOException if the file could not be written
+	 */
+	public static void write(@NotNull Path target, @NotNull String data, @NotNull FsyncPolicy policy) throws IOException {
+		write(target, data.getBytes(StandardCharsets.UTF_8), policy);
+	}
+	
+	/**
+	 * Atomically replaces the content of the file
+	 *
+	 * @param target the file to write
+	 * @param data the new content
+	 * @param policy when the file is forced to the disk
+	 * @throws IOException if the file could not be written
+	 */
+	public static void write(@NotNull Path target, @NotNull byte[] data, @NotNull FsyncPolicy policy) throws IOException {
+		Path absolute = target.toAbsolutePath();
+		Path directory = absolute.getParent();
+		Files.createDirectories(directory);
+		Path temp = createTempFile(absolute);
+		try{
+			copyPermissions(absolute, temp);
+			try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+				ByteBuffer buffer = ByteBuffer.wrap(data);
+				while(buffer.hasRemaining()){
+					channel.write(buffer);
+				}
+				if(policy == FsyncPolicy.ALWAYS){
+					channel.force(true);
+				}
+			}
+			move(temp, absolute);
+		} catch(IOException | RuntimeException e){
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		
+		switch(policy){
+			case ALWAYS -> syncDirectory(directory);
+			case BATCHED -> PENDING_SYNC.add(absolute);
+			case NEVER -> {
+			}
+		}
+	}
+	
+	/**
+	 * Creates an empty file next to the target, a plain new file gets the default permissions of the umask unlike
+	 * {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute[])} which is only accessible by the owner
+	 */
+	private static Path createTempFile(Path target) throws IOException {
+		while(true){
+			Path temp = target.resolveSibling("." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+			try{
+				return Files.createFile(temp);
+			} catch(FileAlreadyExistsException ignored){
+				//name taken by a concurrent write, try another one
+			}
+		}
+	}
+	
+	/**
+	 * Gives the temporary file the permissions of the file it replaces so saving does not change them, does nothing if the target does not
+	 * exist yet or the file system has no POSIX permissions
+	 */
+	private static void copyPermissions(Path target, Path temp) throws IOException {
+		if(!Files.exists(target)){
+			return;
+		}
+		try{
+			Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+		} catch(UnsupportedOperationException ignored){
+			//not a POSIX file system
+		}
+	}
+	
+	private static void move(Path source, Path target) throws IOException {
+		try{
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch(AtomicMoveNotSupportedException e){
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	/**
+	 * Forces all files written with {@link FsyncPolicy#BATCHED} since the last call and their directories to the disk
+	 *
+	 * @throws IOException if any file could not be forced, the remaining files are still forced
+	 */
+	public static void syncPending() throws IOException {
+		if(PENDING_SYNC.isEmpty()){
+			return;
+		}
+		List<Path> files = new ArrayList<>(PENDING_SYNC);
+		files.forEach(PENDING_SYNC::remove);
+		
+		IOException failure = null;
+		Set<Path> directories = new HashSet<>();
+		for(Path file : files){
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+				channel.force(true);
+				directories.add(file.getParent());
+			} catch(IOException e){
+				if(failure == null) failure = e;
+				else failure.addSuppressed(e);
+			}
+		}
+		for(Path directory : directories){
+			syncDirectory(directory);
+		}
+		if(failure != null){
+			throw failure;
+		}
+	}
+	
+	/**
+	 * @return the amount of files waiting to be forced to the disk
+	 */
+	public static int pendingSyncCount() {
+		return PENDING_SYNC.size();
+	}
+	
+	/**
+	 * Forces the directory entry of a moved file to the disk, not supported on every platform (for example Windows) in which case this does
+	 * nothing
+	 */
+	private static void syncDirectory(Path directory) {
+		try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)){
+			channel.force(true);
+		} catch(IOException ignored){
+			//opening directories is not supported on every platform
+		}
+	}
+}
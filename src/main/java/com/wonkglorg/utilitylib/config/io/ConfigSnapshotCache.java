@@ -0,0 +1,361 @@
+package com.wonkglorg.utilitylib.config.io;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the parsed tree of a config in a compact binary file next to its yml file, named {@code .<file name>.snapshot}. Restoring the tree
+ * from the snapshot is a lot faster than parsing the yml again, the snapshot is only used if it was taken from the exact same content, with
+ * the same snapshot format and with the same library, server and SnakeYAML versions, otherwise the yml is parsed and a new snapshot is
+ * stored.
+ *
+ * <p>Values, comments, inline comments, the header and the footer are kept. Configs containing values other than strings, numbers,
+ * booleans, lists, maps and sections (for example serialized item stacks) are not stored and always parsed from the yml.
+ *
+ * <p>Disabled by default, enable it before any config is created since configs are loaded in their constructor.
+ */
+public final class ConfigSnapshotCache{
+	private static final int MAGIC = 0x55434653;
+	/**
+	 * Has to be increased whenever the format of the snapshot changes
+	 */
+	private static final int FORMAT_VERSION = 2;
+	private static final String SUFFIX = ".snapshot";
+	
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INTEGER = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte BOOLEAN = 5;
+	private static final byte LIST = 6;
+	private static final byte MAP = 7;
+	private static final byte SECTION = 8;
+	/**
+	 * Upper bound for the initial capacity of decoded lists so a corrupted size fails on reading instead of allocating
+	 */
+	private static final int MAX_INITIAL_CAPACITY = 64;
+	
+	private static volatile boolean enabled = false;
+	/**
+	 * The versions the parsed values depend on, null until the first snapshot is read or written
+	 */
+	private static volatile String runtimeVersion;
+	
+	private ConfigSnapshotCache() {
+	}
+	
+	/**
+	 * The library, server and SnakeYAML versions, an upgrade of any of them can change how values are parsed (for example int vs long or
+	 * date handling) so snapshots taken with other versions are rejected
+	 *
+	 * @return the versions snapshots are taken with
+	 */
+	private static String getRuntimeVersion() {
+		String version = runtimeVersion;
+		if(version == null){
+			String server = Bukkit.getServer() != null ? Bukkit.getBukkitVersion() : "no server";
+			version = ConfigSnapshotCache.class.getPackage().getImplementationVersion() + "/" + server + "/" + Yaml.class.getPackage()
+					.getImplementationVersion();
+			runtimeVersion = version;
+		}
+		return version;
+	}
+	
+	/**
+	 * A decoded entry of a section
+	 *
+	 * @param key the key of the entry inside its section
+	 * @param comments the comments above the entry
+	 * @param inlineComments the comments behind the entry
+	 * @param value the value or a {@link SectionNode} for sections
+	 */
+	private record Node(String key, List<String> comments, List<String> inlineComments, Object value){}
+	
+	/**
+	 * The decoded entries of a section
+	 */
+	private record SectionNode(List<Node> nodes){}
+	
+	/**
+	 * Thrown while encoding a config that contains a value the snapshot format does not support
+	 */
+	private static final class UnsupportedValueException extends IOException{
+		private UnsupportedValueException(Object value) {
+			super("Unsupported value type " + value.getClass().getName());
+		}
+	}
+	
+	/**
+	 * @param enabled true to store and restore snapshots of configs when they are loaded
+	 */
+	public static void setEnabled(boolean enabled) {
+		ConfigSnapshotCache.enabled = enabled;
+	}
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * @param source the yml file
+	 * @return the snapshot file of the yml file
+	 */
+	public static Path snapshotFile(@NotNull Path source) {
+		return source.resolveSibling("." + source.getFileName() + SUFFIX);
+	}
+	
+	/**
+	 * Replaces the content of the config with the stored snapshot of the file
+	 *
+	 * @param config the config to restore
+	 * @param source the yml file the config is loaded from
+	 * @param fingerprint the fingerprint of the current content of the yml file
+	 * @return true if the config was restored, false if there is no valid snapshot for the current content
+	 */
+	public static boolean restore(@NotNull FileConfiguration config, @NotNull Path source, @NotNull FileFingerprint fingerprint) {
+		byte[] data;
+		try{
+			data = Files.readAllBytes(snapshotFile(source));
+		} catch(IOException e){
+			return false;
+		}
+		
+		List<String> header;
+		List<String> footer;
+		SectionNode root;
+		try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))){
+			if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !readString(in).equals(getRuntimeVersion()) || in.readLong() != fingerprint.size()
+					|| in.readLong() != fingerprint.checksum()){
+				return false;
+			}
+			header = readStrings(in);
+			footer = readStrings(in);
+			root = readSection(in);
+		} catch(IOException | RuntimeException e){
+			return false;
+		}
+		
+		for(String key : config.getKeys(false)){
+			config.set(key, null);
+		}
+		apply(config, root);
+		config.options().setHeader(header);
+		config.options().setFooter(footer);
+		return true;
+	}
+	
+	private static void apply(ConfigurationSection section, SectionNode node) {
+		for(Node entry : node.nodes()){
+			if(entry.value() instanceof SectionNode child){
+				apply(section.createSection(entry.key()), child);
+			} else {
+				section.set(entry.key(), entry.value());
+			}
+			if(!entry.comments().isEmpty()){
+				section.setComments(entry.key(), entry.comments());
+			}
+			if(!entry.inlineComments().isEmpty()){
+				section.setInlineComments(entry.key(), entry.inlineComments());
+			}
+		}
+	}
+	
+	/**
+	 * Stores a snapshot of the config that was just parsed from the given content
+	 *
+	 * @param config the config to store
+	 * @param source the yml file the config was loaded from
+	 * @param fingerprint the fingerprint of the content the config was parsed from
+	 * @return true if the snapshot was stored, false if the config contains unsupported values or the snapshot could not be written
+	 */
+	public static boolean store(@NotNull FileConfiguration config, @NotNull Path source, @NotNull FileFingerprint fingerprint) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(DataOutputStream out = new DataOutputStream(bytes)){
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			writeString(out, getRuntimeVersion());
+			out.writeLong(fingerprint.size());
+			out.writeLong(fingerprint.checksum());
+			writeStrings(out, config.options().getHeader());
+			writeStrings(out, config.options().getFooter());
+			writeSection(out, config);
+		} catch(IOException e){
+			deleteSnapshot(source);
+			return false;
+		}
+		
+		try{
+			AtomicFileWriter.write(snapshotFile(source), bytes.toByteArray(), FsyncPolicy.NEVER);
+			return true;
+		} catch(IOException e){
+			return false;
+		}
+	}
+	
+	private static void deleteSnapshot(Path source) {
+		try{
+			Files.deleteIfExists(snapshotFile(source));
+		} catch(IOException ignored){
+			//an outdated snapshot is rejected by its checksum anyway
+		}
+	}
+	
+	private static void writeSection(DataOutputStream out, ConfigurationSection section) throws IOException {
+		Map<String, Object> values = section.getValues(false);
+		out.writeInt(values.size());
+		for(var entry : values.entrySet()){
+			writeString(out, entry.getKey());
+			writeStrings(out, section.getComments(entry.getKey()));
+			writeStrings(out, section.getInlineComments(entry.getKey()));
+			writeValue(out, entry.getValue());
+		}
+	}
+	
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		switch(value){
+			case null -> out.writeByte(NULL);
+			case String string -> {
+				out.writeByte(STRING);
+				writeString(out, string);
+			}
+			case Integer integer -> {
+				out.writeByte(INTEGER);
+				out.writeInt(integer);
+			}
+			case Long longValue -> {
+				out.writeByte(LONG);
+				out.writeLong(longValue);
+			}
+			case Double doubleValue -> {
+				out.writeByte(DOUBLE);
+				out.writeDouble(doubleValue);
+			}
+			case Boolean bool -> {
+				out.writeByte(BOOLEAN);
+				out.writeBoolean(bool);
+			}
+			case ConfigurationSection section -> {
+				out.writeByte(SECTION);
+				writeSection(out, section);
+			}
+			case List<?> list -> {
+				out.writeByte(LIST);
+				out.writeInt(list.size());
+				for(Object element : list){
+					writeValue(out, element);
+				}
+			}
+			case Map<?, ?> map -> {
+				out.writeByte(MAP);
+				out.writeInt(map.size());
+				for(var entry : map.entrySet()){
+					if(!(entry.getKey() instanceof String key)){
+						throw new UnsupportedValueException(entry.getKey());
+					}
+					writeString(out, key);
+					writeValue(out, entry.getValue());
+				}
+			}
+			default -> throw new UnsupportedValueException(value);
+		}
+	}
+	
+	private static SectionNode readSection(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		List<Node> nodes = new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+		for(int i = 0; i < size; i++){
+			String key = readString(in);
+			List<String> comments = readStrings(in);
+			List<String> inlineComments = readStrings(in);
+			nodes.add(new Node(key, comments, inlineComments, readValue(in)));
+		}
+		return new SectionNode(nodes);
+	}
+	
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		return switch(type){
+			case NULL -> null;
+			case STRING -> readString(in);
+			case INTEGER -> in.readInt();
+			case LONG -> in.readLong();
+			case DOUBLE -> in.readDouble();
+			case BOOLEAN -> in.readBoolean();
+			case SECTION -> readSection(in);
+			case LIST -> {
+				int size = in.readInt();
+				List<Object> list = new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+				for(int i = 0; i < size; i++){
+					list.add(readValue(in));
+				}
+				yield list;
+			}
+			case MAP -> {
+				int size = in.readInt();
+				Map<String, Object> map = new LinkedHashMap<>();
+				for(int i = 0; i < size; i++){
+					map.put(readString(in), readValue(in));
+				}
+				yield map;
+			}
+			default -> throw new IOException("Unknown value type " + type);
+		};
+	}
+	
+	/**
+	 * Writes a list of strings, null elements (blank comment lines) are kept
+	 */
+	private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+		if(strings == null){
+			out.writeInt(0);
+			return;
+		}
+		out.writeInt(strings.size());
+		for(String string : strings){
+			out.writeBoolean(string != null);
+			if(string != null){
+				writeString(out, string);
+			}
+		}
+	}
+	
+	private static List<String> readStrings(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		List<String> strings = new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+		for(int i = 0; i < size; i++){
+			strings.add(in.readBoolean() ? readString(in) : null);
+		}
+		return strings;
+	}
+	
+	/**
+	 * Writes a string prefixed by its length, unlike {@link DataOutputStream#writeUTF(String)} this is not limited to 64KB
+	 */
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+	}
+}
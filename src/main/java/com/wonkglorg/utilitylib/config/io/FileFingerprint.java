@@ -0,0 +1,62 @@
+package com.wonkglorg.utilitylib.config.io;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+/**
+ * Identifies the content of a file at the time it was loaded or saved, used to skip parsing files that did not change
+ *
+ * @param size the size of the file in bytes
+ * @param modified the last modified time of the file in milliseconds
+ * @param checksum the CRC32C checksum of the content
+ * @param takenAt the time the fingerprint was taken in milliseconds
+ */
+public record FileFingerprint(long size, long modified, long checksum, long takenAt){
+	/**
+	 * Files modified this close to the time the fingerprint was taken might be modified again without changing their modified time, their
+	 * content has to be compared instead
+	 */
+	private static final long RACY_MILLIS = 2000;
+	
+	/**
+	 * Creates the fingerprint of the given content
+	 *
+	 * @param content the content of the file
+	 * @param modified the last modified time of the file in milliseconds, read before the content
+	 * @return the created fingerprint
+	 */
+	public static FileFingerprint of(@NotNull byte[] content, long modified) {
+		CRC32C crc = new CRC32C();
+		crc.update(content);
+		return new FileFingerprint(content.length, modified, crc.getValue(), System.currentTimeMillis());
+	}
+	
+	/**
+	 * Checks if the file still has the size and modified time of this fingerprint without reading it
+	 *
+	 * @param path the file to check
+	 * @return true if the file is unchanged, false if it changed or its content has to be compared to know
+	 * @throws IOException if the attributes of the file could not be read
+	 */
+	public boolean isUnchanged(@NotNull Path path) throws IOException {
+		if(modified + RACY_MILLIS > takenAt){
+			return false;
+		}
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		return attributes.size() == size && attributes.lastModifiedTime().toMillis() == modified;
+	}
+	
+	/**
+	 * @param other the fingerprint to compare to
+	 * @return true if both fingerprints describe the same content
+	 */
+	public boolean sameContent(@Nullable FileFingerprint other) {
+		return other != null && other.size == size && other.checksum == checksum;
+	}
+}
@@ -0,0 +1,21 @@
+package com.wonkglorg.utilitylib.config.io;
+
+/**
+ * Defines when a saved config file is forced to the disk, trading durability against the latency of a save
+ */
+public enum FsyncPolicy{
+	/**
+	 * Every save forces the file and its directory to the disk before returning, a completed save survives a crash or power loss
+	 */
+	ALWAYS,
+	/**
+	 * Saves only replace the file, the written files are forced to the disk together on the next {@link AtomicFileWriter#syncPending()}
+	 * (done by {@link com.wonkglorg.utilitylib.config.ConfigManager#flush()} and {@link com.wonkglorg.utilitylib.config.ConfigManager#onShutdown()})
+	 * so saving does not wait for the disk. A power loss before that can lose the latest saves.
+	 */
+	BATCHED,
+	/**
+	 * Files are never forced, leaving it to the operating system when they reach the disk
+	 */
+	NEVER
+}
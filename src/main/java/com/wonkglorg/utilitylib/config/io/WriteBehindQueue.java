@@ -0,0 +1,150 @@
+package com.wonkglorg.utilitylib.config.io;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes config files atomically on a single background thread. Saves of the same file that are queued before the previous one was written are
+ * coalesced into a single write of the latest content.
+ */
+public final class WriteBehindQueue implements AutoCloseable{
+	/**
+	 * The latest queued content per file that was not yet picked up by the writer thread
+	 */
+	private final Map<Path, PendingWrite> pending = new HashMap<>();
+	/**
+	 * The future of the latest save per file that was queued but not yet written, including the one currently being written
+	 */
+	private final Map<Path, CompletableFuture<Void>> outstanding = new ConcurrentHashMap<>();
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("UtilityLib-ConfigWriter").daemon(true).factory());
+	
+	/**
+	 * @param data the content to write
+	 * @param policy when the file is forced to the disk
+	 * @param future completed once the content (or newer content of the same file) was written
+	 */
+	private record PendingWrite(String data, FsyncPolicy policy, CompletableFuture<Void> future){}
+	
+	/**
+	 * Queues the content to be written to the file, replacing any content queued for the same file that was not written yet
+	 *
+	 * @param path the file to write to
+	 * @param data the serialized content, should be taken on the thread modifying the config
+	 * @param policy when the file is forced to the disk
+	 * @return a future completed once the content (or newer content of the same file) was written
+	 * @throws IllegalStateException if the queue was already closed
+	 */
+	public CompletableFuture<Void> enqueue(@NotNull Path path, @NotNull String data, @NotNull FsyncPolicy policy) {
+		synchronized(pending){
+			if(writer.isShutdown()){
+				throw new IllegalStateException("Write behind queue is already closed!");
+			}
+			PendingWrite previous = pending.get(path);
+			if(previous != null){
+				pending.put(path, new PendingWrite(data, policy, previous.future()));
+				return previous.future();
+			}
+			CompletableFuture<Void> future = new CompletableFuture<>();
+			pending.put(path, new PendingWrite(data, policy, future));
+			outstanding.put(path, future);
+			writer.execute(() -> write(path));
+			return future;
+		}
+	}
+	
+	private void write(Path path) {
+		PendingWrite write;
+		synchronized(pending){
+			write = pending.remove(path);
+		}
+		if(write == null){
+			return;
+		}
+		try{
+			AtomicFileWriter.write(path, write.data(), write.policy());
+			outstanding.remove(path, write.future());
+			write.future().complete(null);
+		} catch(IOException | RuntimeException e){
+			outstanding.remove(path, write.future());
+			write.future().completeExceptionally(e);
+		}
+	}
+	
+	/**
+	 * Blocks until the latest save queued for the file was written, so reading the file afterwards does not return outdated content. Returns
+	 * immediately if no save of the file is outstanding, a failed save is not rethrown.
+	 *
+	 * @param path the file to wait for
+	 */
+	public void awaitWrite(@NotNull Path path) {
+		CompletableFuture<Void> future = outstanding.get(path);
+		if(future == null){
+			return;
+		}
+		try{
+			future.join();
+		} catch(CompletionException | CancellationException ignored){
+			//the failure was already reported to the saving config
+		}
+	}
+	
+	/**
+	 * @return a future completed once every save queued before this call was written and all {@link FsyncPolicy#BATCHED} writes were forced
+	 * to the disk
+	 */
+	public CompletableFuture<Void> flush() {
+		return CompletableFuture.runAsync(() -> {
+			try{
+				AtomicFileWriter.syncPending();
+			} catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+		}, writer);
+	}
+	
+	/**
+	 * @return the amount of files waiting to be written
+	 */
+	public int pendingCount() {
+		synchronized(pending){
+			return pending.size();
+		}
+	}
+	
+	/**
+	 * @return true if the queue was closed and no longer accepts saves
+	 */
+	public boolean isClosed() {
+		return writer.isShutdown();
+	}
+	
+	/**
+	 * Writes all queued saves and stops the writer thread, waits up to 30 seconds for outstanding writes
+	 */
+	@Override
+	public void close() {
+		synchronized(pending){
+			writer.shutdown();
+		}
+		try{
+			if(!writer.awaitTermination(30, TimeUnit.SECONDS)){
+				writer.shutdownNow();
+			}
+		} catch(InterruptedException e){
+			writer.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+}
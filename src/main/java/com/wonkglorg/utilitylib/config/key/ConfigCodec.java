@@ -0,0 +1,249 @@
+package com.wonkglorg.utilitylib.config.key;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Converts between the raw value stored in a config and a typed value
+ *
+ * @param <T> the typed value
+ */
+public interface ConfigCodec<T>{
+	
+	ConfigCodec<String> STRING = of(value -> value instanceof ConfigurationSection || value instanceof List<?> ? null : value.toString(), value -> value);
+	ConfigCodec<Integer> INTEGER = of(value -> value instanceof Number number ? number.intValue() : null, value -> value);
+	ConfigCodec<Long> LONG = of(value -> value instanceof Number number ? number.longValue() : null, value -> value);
+	ConfigCodec<Double> DOUBLE = of(value -> value instanceof Number number ? number.doubleValue() : null, value -> value);
+	ConfigCodec<Boolean> BOOLEAN = of(value -> value instanceof Boolean bool ? bool : null, value -> value);
+	ConfigCodec<List<String>> STRING_LIST = listOf(STRING);
+	ConfigCodec<List<Integer>> INTEGER_LIST = listOf(INTEGER);
+	/**
+	 * Stored in the same format as {@link com.wonkglorg.utilitylib.config.types.Config#setLocation(String, Location)}
+	 */
+	ConfigCodec<Location> LOCATION = new ConfigCodec<>(){
+		@Override
+		public @Nullable Location decode(@NotNull Object value) {
+			if(value instanceof Location location){
+				return location;
+			}
+			Map<String, Object> map = asMap(value);
+			return map != null ? Location.deserialize(map) : null;
+		}
+		
+		@Override
+		public @Nullable Object encode(@NotNull Location value) {
+			return value.serialize();
+		}
+		
+		@Override
+		public @NotNull Location copy(@NotNull Location value) {
+			return value.clone();
+		}
+	};
+	/**
+	 * Stored in the same format as {@link com.wonkglorg.utilitylib.config.types.Config#setItemStack(String, ItemStack)}
+	 */
+	ConfigCodec<ItemStack> ITEM_STACK = new ConfigCodec<>(){
+		@Override
+		public @Nullable ItemStack decode(@NotNull Object value) {
+			if(value instanceof ItemStack itemStack){
+				return itemStack;
+			}
+			Map<String, Object> map = asMap(value);
+			return map != null ? ItemStack.deserialize(map) : null;
+		}
+		
+		@Override
+		public @Nullable Object encode(@NotNull ItemStack value) {
+			return value.serialize();
+		}
+		
+		@Override
+		public @NotNull ItemStack copy(@NotNull ItemStack value) {
+			return value.clone();
+		}
+	};
+	/**
+	 * Stored as a Base64 string of {@link ItemStack#serializeAsBytes()}, a lot smaller and faster to load than the map format. Values stored
+	 * in the map format are still read.
+	 */
+	ConfigCodec<ItemStack> BINARY_ITEM_STACK = new ConfigCodec<>(){
+		@Override
+		public @Nullable ItemStack decode(@NotNull Object value) {
+			if(!(value instanceof String string)){
+				return ITEM_STACK.decode(value);
+			}
+			try{
+				return ItemStack.deserializeBytes(Base64.getDecoder().decode(string));
+			} catch(RuntimeException e){
+				return null;
+			}
+		}
+		
+		@Override
+		public @Nullable Object encode(@NotNull ItemStack value) {
+			return Base64.getEncoder().encodeToString(value.serializeAsBytes());
+		}
+		
+		@Override
+		public @NotNull ItemStack copy(@NotNull ItemStack value) {
+			return value.clone();
+		}
+	};
+	/**
+	 * Stored as a single Base64 string of {@link ItemStack#serializeItemsAsBytes(java.util.Collection)}, empty slots are kept as air. Lists
+	 * stored in the map format are still read.
+	 */
+	ConfigCodec<List<ItemStack>> BINARY_ITEM_STACK_LIST = new ConfigCodec<>(){
+		private final ConfigCodec<List<ItemStack>> mapFormat = listOf(ITEM_STACK);
+		
+		@Override
+		public @Nullable List<ItemStack> decode(@NotNull Object value) {
+			if(!(value instanceof String string)){
+				return mapFormat.decode(value);
+			}
+			try{
+				return List.of(ItemStack.deserializeItemsFromBytes(Base64.getDecoder().decode(string)));
+			} catch(RuntimeException e){
+				return null;
+			}
+		}
+		
+		@Override
+		public @Nullable Object encode(@NotNull List<ItemStack> value) {
+			return Base64.getEncoder().encodeToString(ItemStack.serializeItemsAsBytes(value));
+		}
+		
+		@Override
+		public @NotNull List<ItemStack> copy(@NotNull List<ItemStack> value) {
+			return mapFormat.copy(value);
+		}
+	};
+	
+	/**
+	 * Converts the raw value of a config to the typed value
+	 *
+	 * @param value the raw value, a {@link ConfigurationSection} for nested values
+	 * @return the typed value or null if the value cannot be converted
+	 */
+	@Nullable T decode(@NotNull Object value);
+	
+	/**
+	 * Converts the typed value to the value stored in the config
+	 *
+	 * @param value the typed value
+	 * @return the value to store
+	 */
+	@Nullable Object encode(@NotNull T value);
+	
+	/**
+	 * Copies a decoded value before it is handed out so the cached value cannot be modified, needed for mutable types
+	 *
+	 * @param value the decoded value
+	 * @return the value itself for immutable types or a copy
+	 */
+	default @NotNull T copy(@NotNull T value) {
+		return value;
+	}
+	
+	/**
+	 * Creates a codec for an immutable type
+	 *
+	 * @param decoder converts the raw value, returns null if it cannot be converted
+	 * @param encoder converts the typed value to the value to store
+	 * @return the created codec
+	 */
+	static <T> ConfigCodec<T> of(@NotNull Function<Object, T> decoder, @NotNull Function<T, Object> encoder) {
+		return new ConfigCodec<>(){
+			@Override
+			public @Nullable T decode(@NotNull Object value) {
+				return decoder.apply(value);
+			}
+			
+			@Override
+			public @Nullable Object encode(@NotNull T value) {
+				return encoder.apply(value);
+			}
+		};
+	}
+	
+	/**
+	 * Creates a codec for a list of values, elements that cannot be converted are skipped
+	 *
+	 * @param elementCodec the codec of the elements
+	 * @return the created codec, decoded lists are unmodifiable
+	 */
+	static <T> ConfigCodec<List<T>> listOf(@NotNull ConfigCodec<T> elementCodec) {
+		return new ConfigCodec<>(){
+			@Override
+			public @Nullable List<T> decode(@NotNull Object value) {
+				if(!(value instanceof List<?> list)){
+					return null;
+				}
+				List<T> decoded = new ArrayList<>(list.size());
+				for(Object element : list){
+					T decodedElement = element != null ? elementCodec.decode(element) : null;
+					if(decodedElement != null){
+						decoded.add(decodedElement);
+					}
+				}
+				return Collections.unmodifiableList(decoded);
+			}
+			
+			@Override
+			public @Nullable Object encode(@NotNull List<T> value) {
+				List<Object> encoded = new ArrayList<>(value.size());
+				for(T element : value){
+					encoded.add(element != null ? elementCodec.encode(element) : null);
+				}
+				return encoded;
+			}
+			
+			@Override
+			public @NotNull List<T> copy(@NotNull List<T> value) {
+				List<T> copied = null;
+				for(int i = 0; i < value.size(); i++){
+					T element = value.get(i);
+					T copiedElement = elementCodec.copy(element);
+					if(copiedElement != element && copied == null){
+						copied = new ArrayList<>(value.subList(0, i));
+					}
+					if(copied != null){
+						copied.add(copiedElement);
+					}
+				}
+				//decoded lists are unmodifiable already, only lists of mutable elements need a copy
+				return copied != null ? Collections.unmodifiableList(copied) : value;
+			}
+		};
+	}
+	
+	/**
+	 * @return the values of a section or map with string keys, null for any other value
+	 */
+	@SuppressWarnings("unchecked")
+	private static @Nullable Map<String, Object> asMap(Object value) {
+		if(value instanceof ConfigurationSection section){
+			return section.getValues(false);
+		}
+		if(value instanceof Map<?, ?> map){
+			Map<String, Object> converted = new HashMap<>();
+			for(var entry : map.entrySet()){
+				converted.put(String.valueOf(entry.getKey()), entry.getValue());
+			}
+			return converted;
+		}
+		return null;
+	}
+}
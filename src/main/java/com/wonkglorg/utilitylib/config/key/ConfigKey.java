@@ -0,0 +1,154 @@
+package com.wonkglorg.utilitylib.config.key;
+
+import com.wonkglorg.utilitylib.config.types.Config;
+import org.bukkit.Location;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * A typed path into a config. The decoded value is cached until the config or any of its sections is modified or reloaded, repeated reads of
+ * an unchanged config only compare the generation of the config instead of walking the path and converting the value again. Values
+ * modified in place are not detected, see {@link Config#get(ConfigKey)}.
+ *
+ * <pre>
+ *     private static final ConfigKey&lt;Location&gt; SPAWN = ConfigKey.location("spawn.location");
+ *     private static final ConfigKey&lt;Integer&gt; MAX_HOMES = ConfigKey.integer("homes.max", 3);
+ *
+ *     Location spawn = config.get(SPAWN);
+ *     config.set(MAX_HOMES, 5);
+ * </pre>
+ *
+ * <p>Keys are meant to be constants, the cached value belongs to the last config the key was read from so a key alternately read from
+ * multiple configs decodes its value on every read.
+ *
+ * @param <T> the type of the value
+ */
+public final class ConfigKey<T>{
+	private final String path;
+	private final ConfigCodec<T> codec;
+	private final T defaultValue;
+	/**
+	 * The value decoded on the last read
+	 */
+	private volatile Cached<T> cached;
+	
+	/**
+	 * @param config the config the value was read from
+	 * @param generation the {@link Config#getGeneration()} the value was read at
+	 * @param value the decoded value or the default value
+	 */
+	private record Cached<T>(Config config, long generation, T value){}
+	
+	private ConfigKey(String path, ConfigCodec<T> codec, T defaultValue) {
+		this.path = path;
+		this.codec = codec;
+		this.defaultValue = defaultValue;
+	}
+	
+	/**
+	 * @param path the path of the value
+	 * @param codec the codec converting the value
+	 * @param defaultValue the value returned if the config has no value at the path or it cannot be converted
+	 * @return the created key
+	 */
+	public static <T> ConfigKey<T> of(@NotNull String path, @NotNull ConfigCodec<T> codec, @Nullable T defaultValue) {
+		return new ConfigKey<>(path, codec, defaultValue);
+	}
+	
+	/**
+	 * @param path the path of the value
+	 * @param codec the codec converting the value
+	 * @return the created key returning null if the config has no value at the path
+	 */
+	public static <T> ConfigKey<T> of(@NotNull String path, @NotNull ConfigCodec<T> codec) {
+		return new ConfigKey<>(path, codec, null);
+	}
+	
+	public static ConfigKey<String> string(@NotNull String path, @Nullable String defaultValue) {
+		return of(path, ConfigCodec.STRING, defaultValue);
+	}
+	
+	public static ConfigKey<Integer> integer(@NotNull String path, int defaultValue) {
+		return of(path, ConfigCodec.INTEGER, defaultValue);
+	}
+	
+	public static ConfigKey<Long> longKey(@NotNull String path, long defaultValue) {
+		return of(path, ConfigCodec.LONG, defaultValue);
+	}
+	
+	public static ConfigKey<Double> doubleKey(@NotNull String path, double defaultValue) {
+		return of(path, ConfigCodec.DOUBLE, defaultValue);
+	}
+	
+	public static ConfigKey<Boolean> bool(@NotNull String path, boolean defaultValue) {
+		return of(path, ConfigCodec.BOOLEAN, defaultValue);
+	}
+	
+	public static ConfigKey<List<String>> stringList(@NotNull String path) {
+		return of(path, ConfigCodec.STRING_LIST, List.of());
+	}
+	
+	public static ConfigKey<List<Integer>> integerList(@NotNull String path) {
+		return of(path, ConfigCodec.INTEGER_LIST, List.of());
+	}
+	
+	public static ConfigKey<Location> location(@NotNull String path) {
+		return of(path, ConfigCodec.LOCATION);
+	}
+	
+	public static ConfigKey<ItemStack> itemStack(@NotNull String path) {
+		return of(path, ConfigCodec.ITEM_STACK);
+	}
+	
+	public static ConfigKey<List<ItemStack>> itemStackList(@NotNull String path) {
+		return of(path, ConfigCodec.listOf(ConfigCodec.ITEM_STACK), List.of());
+	}
+	
+	/**
+	 * Reads the value from the config, use {@link Config#get(ConfigKey)} instead
+	 *
+	 * @param config the config to read from
+	 * @return the value or the default value if the config has no convertible value at the path
+	 */
+	public T get(@NotNull Config config) {
+		long generation = config.getGeneration();
+		Cached<T> current = cached;
+		if(current == null || current.config() != config || current.generation() != generation){
+			Object raw = config.get(path);
+			T value = raw != null ? codec.decode(raw) : null;
+			current = new Cached<>(config, generation, value != null ? value : defaultValue);
+			cached = current;
+		}
+		return current.value() != null ? codec.copy(current.value()) : null;
+	}
+	
+	/**
+	 * Converts the value to the format stored in the config
+	 *
+	 * @param value the value to convert
+	 * @return the value to store at the path
+	 */
+	public @Nullable Object encode(@Nullable T value) {
+		return value != null ? codec.encode(value) : null;
+	}
+	
+	public String path() {
+		return path;
+	}
+	
+	public ConfigCodec<T> codec() {
+		return codec;
+	}
+	
+	public @Nullable T defaultValue() {
+		return defaultValue;
+	}
+	
+	@Override
+	public String toString() {
+		return "ConfigKey[path=" + path + "]";
+	}
+}
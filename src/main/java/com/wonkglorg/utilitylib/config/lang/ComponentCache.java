@@ -0,0 +1,109 @@
+package com.wonkglorg.utilitylib.config.lang;
+
+import com.wonkglorg.utilitylib.config.metrics.ConfigMetrics;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of deserialized messages for a single lang config, used for requests without any replacements so the same message is not
+ * parsed by MiniMessage on every send.
+ */
+public final class ComponentCache{
+	/**
+	 * Default amount of messages cached per lang config
+	 */
+	public static final int DEFAULT_MAX_SIZE = 512;
+	private final Map<Key, List<Component>> cache = new ConcurrentHashMap<>();
+	/**
+	 * The maximum amount of cached messages, once reached an arbitrary entry is evicted for each new one
+	 */
+	private volatile int maxSize = DEFAULT_MAX_SIZE;
+	/**
+	 * Incremented on every invalidation so messages rendered from outdated values are never cached
+	 */
+	private volatile long epoch = 0;
+	
+	/**
+	 * @param key the lang key
+	 * @param epoch the epoch the message was rendered in
+	 */
+	private record Key(String key, long epoch){}
+	
+	/**
+	 * Gets the cached components for a key or deserializes and caches them
+	 *
+	 * @param key the lang key
+	 * @param epoch the {@link #epoch()} taken before the message's values were looked up, if the cache was invalidated since the message is
+	 * deserialized without being cached
+	 * @param loader deserializes the message if it is not cached
+	 * @return the unmodifiable cached components
+	 */
+	public List<Component> get(@NotNull String key, long epoch, @NotNull Supplier<List<Component>> loader) {
+		if(epoch != this.epoch){
+			ConfigMetrics.get().recordCacheMiss();
+			return List.copyOf(loader.get());
+		}
+		Key cacheKey = new Key(key, epoch);
+		List<Component> components = cache.get(cacheKey);
+		if(components != null){
+			ConfigMetrics.get().recordCacheHit();
+			return components;
+		}
+		ConfigMetrics.get().recordCacheMiss();
+		components = List.copyOf(loader.get());
+		if(maxSize <= 0){
+			return components;
+		}
+		if(cache.size() >= maxSize){
+			Iterator<Key> iterator = cache.keySet().iterator();
+			if(iterator.hasNext()){
+				iterator.next();
+				iterator.remove();
+			}
+		}
+		cache.put(cacheKey, components);
+		return components;
+	}
+	
+	/**
+	 * Removes all cached messages
+	 */
+	public synchronized void invalidate() {
+		epoch++;
+		cache.clear();
+	}
+	
+	/**
+	 * @return the current epoch of the cache, changes whenever the cache is invalidated
+	 */
+	public long epoch() {
+		return epoch;
+	}
+	
+	/**
+	 * @param maxSize the maximum amount of cached messages, 0 disables caching
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		if(maxSize <= 0){
+			invalidate();
+		}
+	}
+	
+	public int getMaxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * @return the amount of currently cached messages
+	 */
+	public int size() {
+		return cache.size();
+	}
+}
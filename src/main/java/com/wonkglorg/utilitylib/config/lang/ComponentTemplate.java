@@ -0,0 +1,153 @@
+package com.wonkglorg.utilitylib.config.lang;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A {@link MessageTemplate} parsed by MiniMessage once, with each placeholder turned into an argument slot of the resulting component tree.
+ * Filling the slots walks the parsed tree instead of parsing the markup again.
+ *
+ * <p>Placeholders used inside a tag (for example {@code <click:run_command:'/tp %player%'>}) cannot become slots, values like these are not
+ * parsed into a template and have to be rendered as a string first.
+ */
+public final class ComponentTemplate{
+	/**
+	 * Tag name prefix used to mark slots while parsing
+	 */
+	private static final String SLOT_TAG = "lang_slot_";
+	/**
+	 * Translation key prefix of the marker components representing slots in the parsed tree
+	 */
+	private static final String SLOT_KEY = "utilitylib.lang.slot.";
+	/**
+	 * The parsed component with marker components in place of each slot
+	 */
+	private final Component component;
+	/**
+	 * The placeholder of each slot including its placeholder chars
+	 */
+	private final String[] placeholders;
+
+	private ComponentTemplate(Component component, String[] placeholders) {
+		this.component = component;
+		this.placeholders = placeholders;
+	}
+
+	/**
+	 * Parses the template with MiniMessage turning its placeholders into slots
+	 *
+	 * @param template the template to parse
+	 * @param miniMessage the MiniMessage instance to parse with
+	 * @return the parsed template or null if a placeholder is part of a tag and cannot be turned into a slot
+	 */
+	public static @Nullable ComponentTemplate parse(@NotNull MessageTemplate template, @NotNull MiniMessage miniMessage) {
+		int count = template.placeholderCount();
+		StringBuilder markup = new StringBuilder();
+		TagResolver[] resolvers = new TagResolver[count];
+		String[] placeholders = new String[count];
+		TagState state = new TagState();
+		for(int i = 0; i < count; i++){
+			String literal = template.literal(i);
+			if(state.scan(literal) || literal.endsWith("\\")){
+				return null;
+			}
+			markup.append(literal).append('<').append(SLOT_TAG).append(i).append('>');
+			placeholders[i] = template.placeholder(i);
+			resolvers[i] = TagResolver.resolver(SLOT_TAG + i, Tag.selfClosingInserting(Component.translatable(SLOT_KEY + i)));
+		}
+		markup.append(template.literal(count));
+		return new ComponentTemplate(miniMessage.deserialize(markup.toString(), TagResolver.resolver(resolvers)), placeholders);
+	}
+
+	/**
+	 * Fills every slot with its value, the style of the placeholder's surrounding tags is applied to the value where the value does not define
+	 * its own
+	 *
+	 * @param values returns the component for a placeholder (including its placeholder chars) or null to show the placeholder as is
+	 * @return the filled component
+	 */
+	public Component fill(@NotNull Function<String, Component> values) {
+		if(placeholders.length == 0){
+			return component;
+		}
+		Component[] arguments = new Component[placeholders.length];
+		for(int i = 0; i < placeholders.length; i++){
+			Component value = values.apply(placeholders[i]);
+			arguments[i] = value != null ? value : Component.text(placeholders[i]);
+		}
+		return fill(component, arguments);
+	}
+
+	private static Component fill(Component component, Component[] arguments) {
+		List<Component> children = component.children();
+		if(component instanceof TranslatableComponent translatable && translatable.key().startsWith(SLOT_KEY)){
+			//compacting the parsed tree can merge the style of a tag around the placeholder (e.g. <red>%player%</red>) into the marker
+			int slot = Integer.parseInt(translatable.key().substring(SLOT_KEY.length()));
+			Component argument = arguments[slot].applyFallbackStyle(translatable.style());
+			for(Component child : children){
+				argument = argument.append(fill(child, arguments));
+			}
+			return argument;
+		}
+		if(children.isEmpty()){
+			return component;
+		}
+		List<Component> filled = null;
+		for(int i = 0; i < children.size(); i++){
+			Component child = children.get(i);
+			Component filledChild = fill(child, arguments);
+			if(filledChild != child && filled == null){
+				filled = new ArrayList<>(children.subList(0, i));
+			}
+			if(filled != null){
+				filled.add(filledChild);
+			}
+		}
+		return filled != null ? component.children(filled) : component;
+	}
+
+	/**
+	 * @return the amount of slots in this template
+	 */
+	public int slotCount() {
+		return placeholders.length;
+	}
+
+	/**
+	 * Tracks if the markup scanned so far ends inside a tag
+	 */
+	private static final class TagState{
+		private boolean inTag = false;
+		private char quote = 0;
+
+		/**
+		 * @return true if the markup ends inside a tag after scanning the given text
+		 */
+		private boolean scan(String text) {
+			for(int i = 0; i < text.length(); i++){
+				char c = text.charAt(i);
+				if(c == '\\'){
+					i++;
+				} else if(!inTag){
+					inTag = c == '<';
+				} else if(quote != 0){
+					if(c == quote) quote = 0;
+				} else if(c == '\'' || c == '"'){
+					quote = c;
+				} else if(c == '>'){
+					inTag = false;
+				}
+			}
+			return inTag;
+		}
+	}
+}
@@ -2,6 +2,7 @@ package com.wonkglorg.utilitylib.config.lang;
 
 import com.wonkglorg.utilitylib.config.LangManager;
 import com.wonkglorg.utilitylib.config.types.LangConfig;
+import com.wonkglorg.utilitylib.config.metrics.ConfigMetrics;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.JoinConfiguration;
@@ -12,11 +13,12 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -27,6 +29,10 @@ import java.util.stream.Collectors;
  */
 @SuppressWarnings("unused")
 public class LangRequest{
+	/**
+	 * Placeholder char used for default values when no lang file could be loaded
+	 */
+	private static final char DEFAULT_PLACEHOLDER_CHAR = '%';
 	private final Logger logger;
 	/**
 	 * The lang manager this request was returned by
@@ -50,20 +56,46 @@ public class LangRequest{
 	private final Map<String, String> replacements = new HashMap<>();
 	
 	private final Map<String, Component> componentReplacements = new HashMap<>();
+	/**
+	 * The config the value was resolved from or null if no lang file could be loaded
+	 */
+	private LangConfig config;
+	/**
+	 * The lang file of the requested locale, null until it was looked up
+	 */
+	private Optional<LangConfig> requestConfig;
+	/**
+	 * The compiled templates of the requested value, one per line, null until the request is resolved
+	 */
+	private List<MessageTemplate> templates;
+
+	/**
+	 * True if the templates are the config's value for the key rather than the default value
+	 */
+	private boolean foundInConfig;
+	/**
+	 * The {@link ComponentCache#epoch()} of the config taken before its templates were looked up
+	 */
+	private long cacheEpoch;
 	/**
 	 * The initial returned result without any other modifications
 	 */
-	private final List<String> initialResult;
+	private List<String> initialResult;
 	/**
-	 * The current result made after all values are collected
+	 * The current result made after all values are collected, null until requested after a modification
 	 */
 	private List<String> result;
 	/**
-	 * Pattern for component replacers
+	 * Replacer for all replacements whose key is not a single placeholder, null until requested after a modification
+	 */
+	private Replacer nonPlaceholderReplacer;
+	/**
+	 * Pattern for component replacers whose key is not a single placeholder
 	 */
 	private Pattern pattern;
 	/**
-	 * Weather or not the initially provided locale should be forced. If false certain methods may re request the message in the given language such as {@link #sendToAudience(Audience)}
+	 * Weather or not the initially provided locale should be forced. If false {@link #sendToAudience(Audience)} resolves the message in the
+	 * locale of the receiving player instead
 	 */
 	private boolean forceLocale = false;
 	
@@ -72,9 +104,7 @@ public class LangRequest{
 		this.langManager = langManager;
 		this.locale = locale;
 		this.key = key;
-		this.defaultValue = defaultValue;
-		this.initialResult = getValue(this.locale, key, defaultValue);
-		this.result = initialResult;
+		this.defaultValue = defaultValue != null ? defaultValue : key;
 	}
 	
 	public LangRequest forceLocale(boolean forceLocale) {
@@ -90,11 +120,8 @@ public class LangRequest{
 			replacement = "";
 		}
 		replacements.put(value, replacement);
-		for(int i = 0; i < result.size(); i++){
-			String input = result.get(i);
-			input = input.replace(value, replacement);
-			result.set(i, input);
-		}
+		result = null;
+		nonPlaceholderReplacer = null;
 		return this;
 	}
 	
@@ -148,94 +175,119 @@ public class LangRequest{
 	}
 	
 	public List<String> getUnmodifiedResult() {
-		return initialResult;
+		recordRequest(false);
+		return unmodifiedResult();
 	}
 	
 	public Locale getLocale() {
 		return locale;
 	}
 	
+	public List<String> getResult() {
+		recordRequest(true);
+		return result();
+	}
+	
 	/**
-	 * Updates the input with all replacements found in the populated replacement map
+	 * Records a single use of this request in the {@link ConfigMetrics}, every public method producing a result calls this exactly once
 	 *
-	 * @param inputs to modify
-	 * @return modified input
+	 * @param withReplacements if the result is rendered with the replacements of this request
 	 */
-	private List<String> updateResult(List<String> inputs) {
-		
-		for(int i = 0; i < inputs.size(); i++){
-			String input = inputs.get(i);
-			for(var replacement : replacements.entrySet()){
-				input = input.replace(replacement.getKey(), replacement.getValue());
-			}
-			inputs.set(i, input);
+	private void recordRequest(boolean withReplacements) {
+		ConfigMetrics metrics = ConfigMetrics.get();
+		metrics.recordRequest(key);
+		int count = replacements.size() + componentReplacements.size();
+		if(withReplacements && count > 0){
+			metrics.recordReplacements(count);
 		}
-		
-		return inputs;
 	}
 	
-	public List<String> getResult() {
+	private List<String> unmodifiedResult() {
+		resolve();
+		if(initialResult == null){
+			initialResult = render(false);
+		}
+		return initialResult;
+	}
+	
+	private List<String> result() {
+		resolve();
+		if(result == null){
+			result = replacements.isEmpty() ? new ArrayList<>(unmodifiedResult()) : render(true);
+		}
 		return result;
 	}
 	
 	private List<Component> toComponent(Function<String, Component> toComponent, List<String> results) {
-		List<Component> components = new ArrayList<>();
+		List<Component> components = new ArrayList<>(results.size());
+		for(int i = 0; i < results.size(); i++){
+			components.add(toLineComponent(toComponent, results, i));
+		}
+		return components;
+	}
+	
+	private Component toSingleComponent(Function<String, Component> toComponent, List<String> results) {
+		return toLineComponent(toComponent, results, 0);
+	}
+	
+	/**
+	 * Converts a single line of the result, splitting it at the placeholders replaced by components
+	 *
+	 * @param toComponent the converter to use for the text in between component replacements
+	 * @param results the rendered result
+	 * @param line the index of the line to convert
+	 * @return the converted line
+	 */
+	private Component toLineComponent(Function<String, Component> toComponent, List<String> results, int line) {
 		if(componentReplacements.isEmpty()){
-			for(var resultValue : results){
-				components.add(toComponent.apply(resultValue));
-			}
-			
-			return components;
+			return toComponent.apply(results.get(line));
 		}
-		
-		if(pattern == null){
-			pattern = Pattern.compile(componentReplacements.keySet().stream().map(Pattern::quote).collect(Collectors.joining("|")));
+		if(!allPlaceholders(componentReplacements)){
+			return splitByPattern(toComponent, results.get(line));
 		}
-		for(var resultValue : results){
-			Matcher matcher = pattern.matcher(resultValue);
-			
-			List<Component> subComponents = new ArrayList<>();
-			int last = 0;
-			
-			while(matcher.find()){
-				if(matcher.start() > last){
-					subComponents.add(toComponent.apply(resultValue.substring(last, matcher.start())));
-				}
-				
-				String key = matcher.group();
-				subComponents.add(componentReplacements.getOrDefault(key, toComponent.apply(key)));
-				
-				last = matcher.end();
+		
+		MessageTemplate template = templates.get(line);
+		Replacer replacer = getNonPlaceholderReplacer();
+		List<Component> subComponents = new ArrayList<>();
+		StringBuilder text = new StringBuilder();
+		for(int i = 0; i < template.placeholderCount(); i++){
+			text.append(replacer.replace(template.literal(i)));
+			String placeholder = template.placeholder(i);
+			String value = replacements.get(placeholder);
+			Component component = value == null ? componentReplacements.get(placeholder) : null;
+			if(component == null){
+				text.append(value != null ? value : placeholder);
+				continue;
 			}
-			
-			if(last < resultValue.length()){
-				subComponents.add(toComponent.apply(resultValue.substring(last)));
+			if(!text.isEmpty()){
+				subComponents.add(toComponent.apply(text.toString()));
+				text.setLength(0);
 			}
-			
-			components.add(Component.join(JoinConfiguration.noSeparators(), subComponents));
-			
+			subComponents.add(component);
+		}
+		text.append(replacer.replace(template.literal(template.placeholderCount())));
+		if(!text.isEmpty()){
+			subComponents.add(toComponent.apply(text.toString()));
 		}
 		
-		return components;
+		return Component.join(JoinConfiguration.noSeparators(), subComponents);
 	}
 	
-	private Component toSingleComponent(Function<String, Component> toComponent, List<String> resultValue) {
-		String first = resultValue.getFirst();
-		if(componentReplacements.isEmpty()){
-			return toComponent.apply(first);
-		}
-		
+	/**
+	 * Splits the line at any component replacement key, only used if a component replacement key is not a single placeholder
+	 */
+	private Component splitByPattern(Function<String, Component> toComponent, String resultValue) {
 		if(pattern == null){
 			pattern = Pattern.compile(componentReplacements.keySet().stream().map(Pattern::quote).collect(Collectors.joining("|")));
 		}
-		Matcher matcher = pattern.matcher(first);
+		Matcher matcher = pattern.matcher(resultValue);
 		
 		List<Component> subComponents = new ArrayList<>();
 		int last = 0;
 		
 		while(matcher.find()){
 			if(matcher.start() > last){
-				subComponents.add(toComponent.apply(first.substring(last, matcher.start())));
+				subComponents.add(toComponent.apply(resultValue.substring(last, matcher.start())));
 			}
 			
 			String key = matcher.group();
@@ -244,8 +296,8 @@ public class LangRequest{
 			last = matcher.end();
 		}
 		
-		if(last < first.length()){
-			subComponents.add(toComponent.apply(first.substring(last)));
+		if(last < resultValue.length()){
+			subComponents.add(toComponent.apply(resultValue.substring(last)));
 		}
 		
 		return Component.join(JoinConfiguration.noSeparators(), subComponents);
@@ -257,14 +309,16 @@ public class LangRequest{
 	 * @return the output as a component
 	 */
 	public List<Component> toComponent(Function<String, Component> toComponent) {
-		return toComponent(toComponent, result);
+		recordRequest(true);
+		return toComponent(toComponent, result());
 	}
 	
 	/**
 	 * @return the output as a component
 	 */
 	public List<Component> toComponent() {
-		return toComponent(MiniMessage.miniMessage()::deserialize, result);
+		recordRequest(true);
+		return new ArrayList<>(toMiniMessageComponents());
 	}
 	
 	/**
@@ -272,14 +326,132 @@ public class LangRequest{
 	 * @return the first line of the config defined value as a component (this cuts off any other lines also specified in the same key, should be used for lines that only have one value it can have.
 	 */
 	public Component toSingleComponent(Function<String, Component> toComponent) {
-		return toSingleComponent(toComponent, result);
+		recordRequest(true);
+		return toSingleComponent(toComponent, result());
 	}
 	
 	/**
 	 * @return the first line of the config defined value as a component (this cuts off any other lines also specified in the same key, should be used for lines that only have one value it can have.
 	 */
 	public Component toSingleComponent() {
-		return toSingleComponent(MiniMessage.miniMessage()::deserialize, result);
+		recordRequest(true);
+		resolve();
+		if(isCacheable()){
+			return toMiniMessageComponents().getFirst();
+		}
+		return toMiniMessageComponent(getComponentTemplates(), 0);
+	}
+	
+	/**
+	 * @return true if the result is the plain config value and can be shared through the config's {@link ComponentCache}
+	 */
+	private boolean isCacheable() {
+		return foundInConfig && replacements.isEmpty() && componentReplacements.isEmpty();
+	}
+	
+	/**
+	 * Deserializes the result with MiniMessage, using the config's {@link ComponentCache} if the request has no replacements and filling the
+	 * config's pre parsed {@link ComponentTemplate}s otherwise
+	 *
+	 * @return the result as components, unmodifiable if it came from the cache
+	 */
+	private List<Component> toMiniMessageComponents() {
+		resolve();
+		if(isCacheable()){
+			return config.getComponentCache().get(key, cacheEpoch, () -> toComponent(MiniMessage.miniMessage()::deserialize, result()));
+		}
+		List<ComponentTemplate> componentTemplates = getComponentTemplates();
+		List<Component> components = new ArrayList<>(templates.size());
+		for(int i = 0; i < templates.size(); i++){
+			components.add(toMiniMessageComponent(componentTemplates, i));
+		}
+		return components;
+	}
+	
+	/**
+	 * Converts a single line with MiniMessage, filling its parsed template if there is one
+	 */
+	private Component toMiniMessageComponent(@Nullable List<ComponentTemplate> componentTemplates, int line) {
+		ComponentTemplate componentTemplate = componentTemplates != null ? componentTemplates.get(line) : null;
+		if(componentTemplate != null){
+			return componentTemplate.fill(this::getSlotValue);
+		}
+		return toLineComponent(MiniMessage.miniMessage()::deserialize, result(), line);
+	}
+	
+	/**
+	 * Gets the parsed templates of the value, string replacements containing MiniMessage markup are not inserted into templates since their tags
+	 * have to style the rest of the line as well
+	 *
+	 * @return the parsed templates of the value or null if the value or the replacements of this request cannot be used with templates
+	 */
+	private @Nullable List<ComponentTemplate> getComponentTemplates() {
+		if(!foundInConfig || !allPlaceholders(replacements) || !allPlaceholders(componentReplacements) || containsMarkup(replacements)){
+			return null;
+		}
+		List<ComponentTemplate> componentTemplates = config.getComponentTemplates(key, langManager);
+		//the config was reloaded since this request resolved its templates
+		if(componentTemplates == null || componentTemplates.size() != templates.size()){
+			return null;
+		}
+		return componentTemplates;
+	}
+	
+	/**
+	 * Gets the value to fill a template slot with, string replacements never contain markup here
+	 */
+	private Component getSlotValue(String placeholder) {
+		String value = replacements.get(placeholder);
+		if(value != null){
+			return Component.text(value);
+		}
+		return componentReplacements.get(placeholder);
+	}
+	
+	/**
+	 * @return true if any value could be interpreted by MiniMessage as a tag or an escape
+	 */
+	private static boolean containsMarkup(Map<String, String> replacerMap) {
+		for(String value : replacerMap.values()){
+			if(value.indexOf('<') >= 0 || value.indexOf('\\') >= 0){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @return true if every key of the given map is a single placeholder
+	 */
+	private boolean allPlaceholders(Map<String, ?> replacerMap) {
+		char placeholderChar = getPlaceholderChar();
+		for(String replaceKey : replacerMap.keySet()){
+			if(!MessageTemplate.isPlaceholder(replaceKey, placeholderChar)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private char getPlaceholderChar() {
+		return config != null ? config.getPlaceholderChar() : DEFAULT_PLACEHOLDER_CHAR;
+	}
+	
+	/**
+	 * @return the replacer for all replacements of this request whose key is not a single placeholder
+	 */
+	private Replacer getNonPlaceholderReplacer() {
+		if(nonPlaceholderReplacer == null){
+			char placeholderChar = getPlaceholderChar();
+			Map<String, String> nonPlaceholders = new HashMap<>();
+			for(var entry : replacements.entrySet()){
+				if(!MessageTemplate.isPlaceholder(entry.getKey(), placeholderChar)){
+					nonPlaceholders.put(entry.getKey(), entry.getValue());
+				}
+			}
+			nonPlaceholderReplacer = nonPlaceholders.isEmpty() ? Replacer.empty() : Replacer.of(nonPlaceholders);
+		}
+		return nonPlaceholderReplacer;
 	}
 	
 	/**
@@ -288,7 +460,9 @@ public class LangRequest{
 	 * @param audience if the audience is a {@link Player} requests their locale to modify the message with unless {@link #forceLocale} is set to true.
 	 */
 	public void sendToAudience(@NotNull Audience audience) {
-		sendToAudience(audience, MiniMessage.miniMessage()::deserialize);
+		recordRequest(true);
+		resolveFor(audience);
+		toMiniMessageComponents().forEach(audience::sendMessage);
 	}
 	
 	/**
@@ -298,81 +472,171 @@ public class LangRequest{
 	 * @param toComponent the function to use turning the result into a component to send
 	 */
 	public void sendToAudience(@NotNull Audience audience, Function<String, Component> toComponent) {
-		if(audience instanceof Player player){
-			if(player.locale() == locale || forceLocale || langManager.getAllLangs().size() == 1){
-				toComponent(toComponent, this.result).forEach(audience::sendMessage);
-			} else {
-				this.result = updateResult(getValue(this.locale, key, defaultValue));
-				toComponent(toComponent, this.result).forEach(audience::sendMessage);
-			}
-		} else {
-			toComponent(toComponent, this.result).forEach(audience::sendMessage);
-		}
+		recordRequest(true);
+		resolveFor(audience);
+		toComponent(toComponent, result()).forEach(audience::sendMessage);
 	}
 	
 	/**
-	 * Gets a value from the language file with global replacements applied
+	 * Sends the request's result to all given audiences using the MiniMessage formatting. The audiences are grouped by the lang file their
+	 * locale resolves to and the message is rendered only once per group.
 	 *
-	 * @param locale the locale to get the value from
-	 * @param key the key to get by
-	 * @param defaultValue the default value to return if no value was found
-	 * @return the returned result or the value if no result was found
-	 */
-	private List<String> getValue(@Nullable final Locale locale, @NotNull final String key, @Nullable String defaultValue) {
-		LangConfig config;
-		defaultValue = defaultValue != null ? defaultValue : key;
-		var configOptional = langManager.getAnyValidLangConfig(locale);
-		if(configOptional.isPresent()){
-			config = configOptional.get();
-		} else {
-			logger.log(Level.INFO, "No lang file could be loaded for request: " + key + " using default value!");
-			List<String> arrayList = new ArrayList<>();
-			arrayList.add(defaultValue);
-			return arrayList;
+	 * @param audiences the audiences to send the message to, each {@link Player} receives the message in their locale unless {@link #forceLocale} is set to true.
+	 */
+	public void sendToAudiences(@NotNull Iterable<? extends Audience> audiences) {
+		sendToAudiences(audiences, null);
+	}
+	
+	/**
+	 * Sends the request's result to all given audiences. The audiences are grouped by the lang file their locale resolves to and the message is
+	 * rendered only once per group.
+	 *
+	 * @param audiences the audiences to send the message to, each {@link Player} receives the message in their locale unless {@link #forceLocale} is set to true.
+	 * @param toComponent the function to use turning the result into a component to send or null to use MiniMessage
+	 */
+	public void sendToAudiences(@NotNull Iterable<? extends Audience> audiences, @Nullable Function<String, Component> toComponent) {
+		recordRequest(true);
+		Map<LangConfig, AudienceGroup> groups = new IdentityHashMap<>();
+		for(Audience audience : audiences){
+			Optional<LangConfig> target = getLangConfigFor(audience);
+			groups.computeIfAbsent(target.orElse(null), k -> new AudienceGroup(target, new ArrayList<>())).audiences().add(audience);
 		}
 		
-		if(config.isUpdateRequest()){
-			config.updateReplacerMap();
+		for(AudienceGroup group : groups.values()){
+			resolveFor(group.target());
+			List<Component> components = toComponent == null ? toMiniMessageComponents() : toComponent(toComponent, result());
+			for(Audience audience : group.audiences()){
+				components.forEach(audience::sendMessage);
+			}
 		}
-		
-		if(config.isList(key)){
-			List<String> results = config.getStringList(key);
-			
-			for(int i = 0; i < results.size(); i++){
-				String edited = results.get(i);
-				
-				for(var entry : langManager.getReplacerMap().entrySet()){
-					edited = edited.replace(entry.getKey(), entry.getValue());
-				}
-				
-				for(var entry : config.getReplacerMap().entrySet()){
-					edited = edited.replace(entry.getKey(), entry.getValue());
-				}
-				
-				results.set(i, edited);
+	}
+	
+	/**
+	 * Audiences receiving the message from the same lang file
+	 */
+	private record AudienceGroup(Optional<LangConfig> target, List<Audience> audiences){}
+	
+	/**
+	 * Resolves the request in the requested locale if it was not resolved yet
+	 */
+	private void resolve() {
+		if(templates == null){
+			resolveTemplates(getRequestLangConfig());
+		}
+	}
+	
+	/**
+	 * Resolves the request in the locale of the audience if it is a {@link Player}, unless {@link #forceLocale} is set to true
+	 */
+	private void resolveFor(@NotNull Audience audience) {
+		resolveFor(getLangConfigFor(audience));
+	}
+	
+	/**
+	 * Resolves the request from the given lang file unless it already is
+	 */
+	private void resolveFor(Optional<LangConfig> target) {
+		if(templates == null || config != target.orElse(null)){
+			resolveTemplates(target);
+		}
+	}
+	
+	/**
+	 * @return the lang file the message should be resolved from for the given audience
+	 */
+	private Optional<LangConfig> getLangConfigFor(@NotNull Audience audience) {
+		if(!forceLocale && audience instanceof Player player){
+			LangManager.PlayerLangConfig resolved = langManager.getPlayerLangConfig(player);
+			if(resolved.localeFallback()){
+				trackFallback(player.locale());
 			}
-			
-			return results;
-			
-		} else {
-			String resultString = config.getString(key, defaultValue);
-			if(langManager.getReplacerMap().isEmpty() && config.getReplacerMap().isEmpty()){
-				List<String> strings = new ArrayList<>();
-				strings.add(resultString);
-				return strings;
+			return resolved.config();
+		}
+		return getRequestLangConfig();
+	}
+	
+	/**
+	 * @return the lang file of the requested locale, looked up once per request
+	 */
+	private Optional<LangConfig> getRequestLangConfig() {
+		if(requestConfig == null){
+			requestConfig = langManager.getAnyValidLangConfig(locale);
+			if(requestConfig.isPresent() && langManager.isLocaleFallback(locale, requestConfig.get())){
+				trackFallback(locale);
 			}
-			
-			for(var entry : langManager.getReplacerMap().entrySet()){
-				resultString = resultString.replace(entry.getKey(), entry.getValue());
+		}
+		return requestConfig;
+	}
+	
+	/**
+	 * Records a {@link MissingKeyTracker.Reason#LOCALE_FALLBACK} under the requested locale
+	 *
+	 * @param requested the locale the lang file was requested for
+	 */
+	private void trackFallback(Locale requested) {
+		langManager.getMissingKeyTracker().record(requested, key, MissingKeyTracker.Reason.LOCALE_FALLBACK, logger);
+	}
+	
+	/**
+	 * Looks up the compiled templates for the key from the given lang file, clearing the rendered result if the value changed
+	 *
+	 * @param configOptional the lang file to get the value from
+	 */
+	private void resolveTemplates(final Optional<LangConfig> configOptional) {
+		LangConfig previousConfig = config;
+		List<MessageTemplate> previousTemplates = templates;
+		ConfigMetrics metrics = ConfigMetrics.get();
+		if(configOptional.isEmpty()){
+			config = null;
+			foundInConfig = false;
+			langManager.getMissingKeyTracker().record(locale, key, MissingKeyTracker.Reason.NO_LANG_FILE, logger);
+			metrics.recordMissingKey(locale, key);
+			templates = List.of(MessageTemplate.compile(langManager.getReplacer().replace(defaultValue), DEFAULT_PLACEHOLDER_CHAR));
+		} else {
+			config = configOptional.get();
+			cacheEpoch = config.getComponentCache().epoch();
+			List<MessageTemplate> found = config.getTemplates(key, langManager);
+			foundInConfig = found != null;
+			if(found == null){
+				Locale configLocale = langManager.getLocale(config);
+				langManager.getMissingKeyTracker().record(configLocale, key, MissingKeyTracker.Reason.DEFAULT_VALUE, logger);
+				metrics.recordMissingKey(configLocale, key);
+			} else if(config.isInherited(key, langManager)){
+				langManager.getMissingKeyTracker().record(langManager.getLocale(config), key, MissingKeyTracker.Reason.DEFAULT_LOCALE, logger);
 			}
-			
-			for(var entry : config.getReplacerMap().entrySet()){
-				resultString = resultString.replace(entry.getKey(), entry.getValue());
+			templates = found != null ? found : List.of(MessageTemplate.compile(config.getReplacer(langManager).replace(defaultValue),
+					config.getPlaceholderChar()));
+		}
+		
+		//another locale resolving to the same value can keep the already rendered result
+		if(config != previousConfig || !templates.equals(previousTemplates)){
+			initialResult = null;
+			result = null;
+			nonPlaceholderReplacer = null;
+		}
+	}
+	
+	/**
+	 * Renders every template line, global and config replacements are already part of the templates. Replacements whose key is not a single
+	 * placeholder are applied to the literal text of the value only, so inserted values are never replaced again
+	 *
+	 * @param withReplacements if the replacements of this request should be applied
+	 * @return the rendered lines
+	 */
+	private List<String> render(boolean withReplacements) {
+		List<String> lines = new ArrayList<>(templates.size());
+		if(!withReplacements){
+			for(MessageTemplate template : templates){
+				lines.add(template.source());
 			}
-			List<String> strings = new ArrayList<>();
-			strings.add(resultString);
-			return strings;
+			return lines;
+		}
+		
+		Replacer replacer = getNonPlaceholderReplacer();
+		for(MessageTemplate template : templates){
+			lines.add(template.resolve(replacements::get, replacer));
 		}
+		return lines;
 	}
 	
 }
@@ -0,0 +1,125 @@
+package com.wonkglorg.utilitylib.config.lang;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable flat view of a lang config taken right after it was loaded. Requests read their values from the snapshot instead of walking
+ * the nested sections of the config, and a reload publishes a new snapshot only once it is complete.
+ */
+public final class LangSnapshot{
+	/**
+	 * A snapshot without any values
+	 */
+	public static final LangSnapshot EMPTY = new LangSnapshot(Map.of(), Map.of());
+	/**
+	 * Rough per object overheads used for {@link #estimatedSize()}
+	 */
+	private static final int STRING_OVERHEAD = 40;
+	private static final int ENTRY_OVERHEAD = 32;
+	private static final int LIST_OVERHEAD = 16;
+	/**
+	 * All string and list values by their full path, scalar values are stored as a single line
+	 */
+	private final Map<String, List<String>> values;
+	/**
+	 * The placeholders defined in the config including their placeholder chars
+	 */
+	private final Map<String, String> replacements;
+	/**
+	 * Rough estimate of the heap used by this snapshot in bytes
+	 */
+	private final long estimatedSize;
+	
+	private LangSnapshot(Map<String, List<String>> values, Map<String, String> replacements) {
+		this.values = values;
+		this.replacements = replacements;
+		long size = 0;
+		for(var entry : values.entrySet()){
+			size += ENTRY_OVERHEAD + STRING_OVERHEAD + entry.getKey().length() + LIST_OVERHEAD;
+			for(String line : entry.getValue()){
+				size += 4 + STRING_OVERHEAD + line.length();
+			}
+		}
+		for(var entry : replacements.entrySet()){
+			size += ENTRY_OVERHEAD + 2L * STRING_OVERHEAD + entry.getKey().length() + entry.getValue().length();
+		}
+		this.estimatedSize = size;
+	}
+	
+	/**
+	 * Flattens the given config into a snapshot
+	 *
+	 * @param config the config to flatten
+	 * @param placeholderPath the path of the placeholder definitions
+	 * @param placeholderChar the character used to denote placeholders
+	 * @return the created snapshot
+	 */
+	public static LangSnapshot of(@NotNull ConfigurationSection config, @Nullable String placeholderPath, char placeholderChar) {
+		Map<String, List<String>> values = new HashMap<>();
+		for(var entry : config.getValues(true).entrySet()){
+			Object value = entry.getValue();
+			if(value == null || value instanceof ConfigurationSection){
+				continue;
+			}
+			if(value instanceof List<?> list){
+				List<String> lines = new ArrayList<>(list.size());
+				for(Object line : list){
+					if(line instanceof String || line instanceof Number || line instanceof Boolean || line instanceof Character){
+						lines.add(String.valueOf(line));
+					}
+				}
+				values.put(entry.getKey(), List.copyOf(lines));
+			} else {
+				values.put(entry.getKey(), List.of(value.toString()));
+			}
+		}
+		
+		Map<String, String> replacements = new HashMap<>();
+		ConfigurationSection placeholders = placeholderPath != null ? config.getConfigurationSection(placeholderPath) : null;
+		if(placeholders != null){
+			for(var entry : placeholders.getValues(false).entrySet()){
+				if(entry.getValue() != null){
+					replacements.put(placeholderChar + entry.getKey() + placeholderChar, entry.getValue().toString());
+				}
+			}
+		}
+		
+		return new LangSnapshot(Map.copyOf(values), Map.copyOf(replacements));
+	}
+	
+	/**
+	 * @param key the full path of the value
+	 * @return the lines of the value or null if the key has no value
+	 */
+	public @Nullable List<String> get(@NotNull String key) {
+		return values.get(key);
+	}
+	
+	/**
+	 * @return all values by their full path
+	 */
+	public Map<String, List<String>> values() {
+		return values;
+	}
+	
+	/**
+	 * @return the placeholders defined in the config including their placeholder chars
+	 */
+	public Map<String, String> replacements() {
+		return replacements;
+	}
+	
+	/**
+	 * @return a rough estimate of the heap used by this snapshot in bytes, assuming compact latin-1 strings
+	 */
+	public long estimatedSize() {
+		return estimatedSize;
+	}
+}
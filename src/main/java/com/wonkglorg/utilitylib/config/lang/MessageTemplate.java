@@ -0,0 +1,173 @@
+package com.wonkglorg.utilitylib.config.lang;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A lang value compiled into alternating literal and placeholder segments. Filling in the placeholders is a single pass over the value
+ * instead of one {@link String#replace(CharSequence, CharSequence)} call per known replacement.
+ *
+ * <p>A placeholder is any text enclosed by the placeholder char that contains no whitespace, for example {@code %player%}.
+ */
+public final class MessageTemplate{
+	/**
+	 * The value this template was compiled from
+	 */
+	private final String source;
+	/**
+	 * The literal text segments, there is always exactly one more literal than there are placeholders (possibly empty)
+	 */
+	private final String[] literals;
+	/**
+	 * The placeholders including their surrounding placeholder chars
+	 */
+	private final String[] placeholders;
+	/**
+	 * Combined length of all literal segments, used to size the output buffer
+	 */
+	private final int literalLength;
+	
+	private MessageTemplate(String source, String[] literals, String[] placeholders) {
+		this.source = source;
+		this.literals = literals;
+		this.placeholders = placeholders;
+		int length = 0;
+		for(String literal : literals){
+			length += literal.length();
+		}
+		this.literalLength = length;
+	}
+	
+	/**
+	 * Compiles the given value into a template
+	 *
+	 * @param source the value to compile
+	 * @param placeholderChar the character used to denote placeholders
+	 * @return the compiled template
+	 */
+	public static MessageTemplate compile(@NotNull String source, char placeholderChar) {
+		List<String> literals = new ArrayList<>();
+		List<String> placeholders = new ArrayList<>();
+		int literalStart = 0;
+		int index = source.indexOf(placeholderChar);
+		while(index >= 0){
+			int end = findPlaceholderEnd(source, index, placeholderChar);
+			if(end < 0){
+				index = source.indexOf(placeholderChar, index + 1);
+				continue;
+			}
+			literals.add(source.substring(literalStart, index));
+			placeholders.add(source.substring(index, end + 1));
+			literalStart = end + 1;
+			index = source.indexOf(placeholderChar, literalStart);
+		}
+		literals.add(source.substring(literalStart));
+		return new MessageTemplate(source, literals.toArray(String[]::new), placeholders.toArray(String[]::new));
+	}
+	
+	/**
+	 * Checks if the given value is exactly one placeholder, only those values can be filled in by {@link #resolve(Function)}
+	 *
+	 * @param value the value to check
+	 * @param placeholderChar the character used to denote placeholders
+	 * @return true if the value is a single placeholder
+	 */
+	public static boolean isPlaceholder(@NotNull String value, char placeholderChar) {
+		return value.length() > 2 && value.charAt(0) == placeholderChar && findPlaceholderEnd(value, 0, placeholderChar) == value.length() - 1;
+	}
+	
+	/**
+	 * Finds the closing placeholder char for a placeholder starting at the given index
+	 *
+	 * @return the index of the closing char or -1 if the char at start does not open a placeholder
+	 */
+	private static int findPlaceholderEnd(String source, int start, char placeholderChar) {
+		for(int i = start + 1; i < source.length(); i++){
+			char c = source.charAt(i);
+			if(c == placeholderChar){
+				return i > start + 1 ? i : -1;
+			}
+			if(Character.isWhitespace(c)){
+				return -1;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Builds the final string in a single pass.
+	 *
+	 * @param lookup returns the value for a placeholder (including its placeholder chars) or null to keep the placeholder as is
+	 * @return the resolved value
+	 */
+	public String resolve(@NotNull Function<String, String> lookup) {
+		return resolve(lookup, Replacer.empty());
+	}
+	
+	/**
+	 * Builds the final string in a single pass, applying the literal replacer to the literal segments only so inserted values are never
+	 * replaced again
+	 *
+	 * @param lookup returns the value for a placeholder (including its placeholder chars) or null to keep the placeholder as is
+	 * @param literalReplacer the replacer applied to each literal segment
+	 * @return the resolved value
+	 */
+	public String resolve(@NotNull Function<String, String> lookup, @NotNull Replacer literalReplacer) {
+		if(placeholders.length == 0){
+			return literalReplacer.replace(source);
+		}
+		StringBuilder builder = new StringBuilder(literalLength + placeholders.length * 16);
+		for(int i = 0; i < placeholders.length; i++){
+			builder.append(literalReplacer.replace(literals[i]));
+			String value = lookup.apply(placeholders[i]);
+			builder.append(value != null ? value : placeholders[i]);
+		}
+		builder.append(literalReplacer.replace(literals[placeholders.length]));
+		return builder.toString();
+	}
+	
+	/**
+	 * @return the amount of placeholders in this template
+	 */
+	public int placeholderCount() {
+		return placeholders.length;
+	}
+	
+	/**
+	 * @param index the index of the placeholder
+	 * @return the placeholder at the index including its placeholder chars
+	 */
+	public String placeholder(int index) {
+		return placeholders[index];
+	}
+	
+	/**
+	 * @param index the index of the literal, the literal at index i comes right before the placeholder at index i
+	 * @return the literal text segment at the index
+	 */
+	public String literal(int index) {
+		return literals[index];
+	}
+	
+	/**
+	 * @return true if this template contains at least one placeholder
+	 */
+	public boolean hasPlaceholders() {
+		return placeholders.length > 0;
+	}
+	
+	/**
+	 * @return the value this template was compiled from
+	 */
+	public String source() {
+		return source;
+	}
+	
+	@Override
+	public String toString() {
+		return source;
+	}
+}
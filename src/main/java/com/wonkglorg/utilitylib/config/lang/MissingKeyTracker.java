@@ -0,0 +1,240 @@
+package com.wonkglorg.utilitylib.config.lang;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counts lang requests that could not be answered from the requested lang file. Each distinct miss is logged once at {@link Level#FINE} and
+ * counted afterwards, so untranslated keys can be found through {@link #snapshot()} or {@link #logSummary(Logger)} without logging every
+ * request.
+ */
+@SuppressWarnings("unused")
+public final class MissingKeyTracker{
+	/**
+	 * Default maximum amount of distinct misses tracked
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 10_000;
+	/**
+	 * The maximum amount of misses listed in a summary
+	 */
+	private static final int SUMMARY_LIMIT = 20;
+	private final Map<Miss, Counter> misses = new ConcurrentHashMap<>();
+	/**
+	 * Misses not tracked individually since {@link #maxEntries} was reached
+	 */
+	private final LongAdder overflow = new LongAdder();
+	private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+	private volatile boolean enabled = true;
+	/**
+	 * The overflow count at the time of the last summary
+	 */
+	private long reportedOverflow = 0;
+	
+	/**
+	 * Why a request was not answered from its lang file
+	 */
+	public enum Reason{
+		/**
+		 * No lang file is registered at all, the default value of the request was used
+		 */
+		NO_LANG_FILE,
+		/**
+		 * Neither the lang file nor the default lang file contain the key, the default value of the request was used
+		 */
+		DEFAULT_VALUE,
+		/**
+		 * The lang file does not contain the key, the value of the default lang file was used
+		 */
+		DEFAULT_LOCALE,
+		/**
+		 * No lang file is registered for the requested locale, the lang file of another locale was used
+		 */
+		LOCALE_FALLBACK
+	}
+	
+	/**
+	 * A distinct miss
+	 *
+	 * @param locale the locale of the lang file missing the key or the requested locale if no lang file exists for it, null if neither is known
+	 * @param key the requested key
+	 * @param reason why the request was not answered from the lang file
+	 */
+	public record Miss(@Nullable Locale locale, @NotNull String key, @NotNull Reason reason){}
+	
+	/**
+	 * The total amount of times a miss occurred and the count at the time of the last summary
+	 */
+	private static final class Counter{
+		private final LongAdder count = new LongAdder();
+		/**
+		 * Only accessed while summarizing
+		 */
+		private long reported = 0;
+	}
+	
+	/**
+	 * Counts a miss, logging it if it did not occur before
+	 *
+	 * @param locale the locale of the lang file missing the key or the requested locale if no lang file exists for it
+	 * @param key the requested key
+	 * @param reason why the request was not answered from the lang file
+	 * @param logger the logger to log the first occurrence to
+	 */
+	public void record(@Nullable Locale locale, @NotNull String key, @NotNull Reason reason, @NotNull Logger logger) {
+		if(!enabled){
+			return;
+		}
+		Miss miss = new Miss(locale, key, reason);
+		Counter counter = misses.get(miss);
+		if(counter == null){
+			if(misses.size() >= maxEntries){
+				overflow.increment();
+				return;
+			}
+			Counter created = new Counter();
+			counter = misses.putIfAbsent(miss, created);
+			if(counter == null){
+				counter = created;
+				logFirst(miss, logger);
+			}
+		}
+		counter.count.increment();
+	}
+	
+	private static void logFirst(Miss miss, Logger logger) {
+		if(!logger.isLoggable(Level.FINE)){
+			return;
+		}
+		switch(miss.reason()){
+			case NO_LANG_FILE -> logger.log(Level.FINE, "No lang file could be loaded for request: " + miss.key() + " using default value!");
+			case DEFAULT_VALUE -> logger.log(Level.FINE, "No value for " + miss.key() + " in lang file of " + miss.locale() + " using default value!");
+			case DEFAULT_LOCALE -> logger.log(Level.FINE, "No value for " + miss.key() + " in lang file of " + miss.locale() + " using default lang file!");
+			case LOCALE_FALLBACK -> logger.log(Level.FINE, "No lang file for " + miss.locale() + " requesting " + miss.key() + " using the lang file of another locale!");
+		}
+	}
+	
+	/**
+	 * @return the total count of every distinct miss
+	 */
+	public Map<Miss, Long> snapshot() {
+		Map<Miss, Long> snapshot = new HashMap<>();
+		misses.forEach((miss, counter) -> snapshot.put(miss, counter.count.sum()));
+		return snapshot;
+	}
+	
+	/**
+	 * @return the keys missing per locale including the ones answered from the default lang file or the lang file of another locale, ignoring
+	 * requests made while no lang file existed
+	 */
+	public Map<Locale, List<String>> missingKeys() {
+		Map<Locale, List<String>> keys = new HashMap<>();
+		for(Miss miss : misses.keySet()){
+			if(miss.reason() != Reason.NO_LANG_FILE && miss.locale() != null){
+				keys.computeIfAbsent(miss.locale(), k -> new ArrayList<>()).add(miss.key());
+			}
+		}
+		keys.values().forEach(list -> list.sort(null));
+		return keys;
+	}
+	
+	/**
+	 * Logs the misses that occurred since the last summary, most frequent first, does nothing if there were none
+	 *
+	 * @param logger the logger to log the summary to
+	 */
+	public synchronized void logSummary(@NotNull Logger logger) {
+		List<Map.Entry<Miss, Long>> recent = new ArrayList<>();
+		long total = 0;
+		for(var entry : misses.entrySet()){
+			Counter counter = entry.getValue();
+			long count = counter.count.sum();
+			long delta = count - counter.reported;
+			counter.reported = count;
+			if(delta > 0){
+				recent.add(Map.entry(entry.getKey(), delta));
+				total += delta;
+			}
+		}
+		long currentOverflow = overflow.sum();
+		long overflowDelta = currentOverflow - reportedOverflow;
+		reportedOverflow = currentOverflow;
+		if(recent.isEmpty() && overflowDelta == 0){
+			return;
+		}
+		
+		recent.sort(Map.Entry.<Miss, Long>comparingByValue(Comparator.reverseOrder()));
+		StringBuilder summary = new StringBuilder();
+		summary.append(total + overflowDelta).append(" lang requests could not be answered from their lang file since the last summary (").append(recent.size()).append(
+				" distinct keys):");
+		for(int i = 0; i < Math.min(recent.size(), SUMMARY_LIMIT); i++){
+			Miss miss = recent.get(i).getKey();
+			summary.append("\n  ").append(miss.locale() != null ? miss.locale().toLanguageTag() : "no lang file").append(": ").append(miss.key()).append(" (").append(
+					describe(miss.reason())).append(", ").append(recent.get(i).getValue()).append(")");
+		}
+		if(recent.size() > SUMMARY_LIMIT){
+			summary.append("\n  ... and ").append(recent.size() - SUMMARY_LIMIT).append(" more");
+		}
+		if(overflowDelta > 0){
+			summary.append("\n  ").append(overflowDelta).append(" misses were not tracked since the limit of ").append(maxEntries).append(
+					" distinct keys was reached");
+		}
+		logger.log(Level.INFO, summary.toString());
+	}
+	
+	private static String describe(Reason reason) {
+		return switch(reason){
+			case NO_LANG_FILE, DEFAULT_VALUE -> "default value";
+			case DEFAULT_LOCALE -> "default lang";
+			case LOCALE_FALLBACK -> "locale fallback";
+		};
+	}
+	
+	/**
+	 * Removes all tracked misses
+	 */
+	public synchronized void clear() {
+		misses.clear();
+		overflow.reset();
+		reportedOverflow = 0;
+	}
+	
+	/**
+	 * @return the amount of distinct misses tracked
+	 */
+	public int size() {
+		return misses.size();
+	}
+	
+	/**
+	 * @param maxEntries the maximum amount of distinct misses tracked, further misses are only counted in total
+	 */
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+	
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+	
+	/**
+	 * @param enabled false to stop tracking misses
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+}
@@ -0,0 +1,227 @@
+package com.wonkglorg.utilitylib.config.lang;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Replaces any number of keys in a single scan of the input using an Aho-Corasick automaton.
+ *
+ * <p>Matches are chosen leftmost first and, when multiple keys start at the same position, longest first. Replacements never overlap and
+ * inserted values are not scanned again, so the result does not depend on the iteration order of the source map.
+ */
+public final class Replacer{
+	private static final Replacer EMPTY = new Replacer(new char[][]{new char[0]}, new int[][]{new int[0]}, new int[1], new int[1], new int[1], new String[1]);
+	/**
+	 * Sorted transition chars per node
+	 */
+	private final char[][] chars;
+	/**
+	 * Transition targets per node, aligned with {@link #chars}
+	 */
+	private final int[][] next;
+	/**
+	 * Failure link per node
+	 */
+	private final int[] fail;
+	/**
+	 * Distance of each node from the root
+	 */
+	private final int[] depth;
+	/**
+	 * The node of the longest key ending at this node (the node itself if it is a key), 0 if none
+	 */
+	private final int[] output;
+	/**
+	 * Replacement value for nodes that complete a key
+	 */
+	private final String[] values;
+	
+	private Replacer(char[][] chars, int[][] next, int[] fail, int[] depth, int[] output, String[] values) {
+		this.chars = chars;
+		this.next = next;
+		this.fail = fail;
+		this.depth = depth;
+		this.output = output;
+		this.values = values;
+	}
+	
+	/**
+	 * @return a replacer without any keys
+	 */
+	public static Replacer empty() {
+		return EMPTY;
+	}
+	
+	/**
+	 * Builds a replacer from the given maps, if multiple maps contain the same key the first one takes priority
+	 *
+	 * @param replacerMaps the maps of keys to their replacement values
+	 * @return the built replacer
+	 */
+	@SafeVarargs
+	public static Replacer of(@NotNull Map<String, String>... replacerMaps) {
+		List<StringBuilder> nodeChars = new ArrayList<>();
+		List<List<Integer>> nodeNext = new ArrayList<>();
+		List<String> nodeValues = new ArrayList<>();
+		List<Integer> nodeDepth = new ArrayList<>();
+		nodeChars.add(new StringBuilder());
+		nodeNext.add(new ArrayList<>());
+		nodeValues.add(null);
+		nodeDepth.add(0);
+		
+		for(Map<String, String> replacerMap : replacerMaps){
+			for(var entry : replacerMap.entrySet()){
+				String key = entry.getKey();
+				if(key == null || key.isEmpty() || entry.getValue() == null){
+					continue;
+				}
+				int node = 0;
+				for(int i = 0; i < key.length(); i++){
+					char c = key.charAt(i);
+					int index = nodeChars.get(node).indexOf(String.valueOf(c));
+					if(index >= 0){
+						node = nodeNext.get(node).get(index);
+						continue;
+					}
+					int created = nodeChars.size();
+					nodeChars.add(new StringBuilder());
+					nodeNext.add(new ArrayList<>());
+					nodeValues.add(null);
+					nodeDepth.add(i + 1);
+					nodeChars.get(node).append(c);
+					nodeNext.get(node).add(created);
+					node = created;
+				}
+				if(nodeValues.get(node) == null){
+					nodeValues.set(node, entry.getValue());
+				}
+			}
+		}
+		
+		int size = nodeChars.size();
+		if(size == 1){
+			return EMPTY;
+		}
+		
+		char[][] chars = new char[size][];
+		int[][] next = new int[size][];
+		for(int node = 0; node < size; node++){
+			char[] unsorted = nodeChars.get(node).toString().toCharArray();
+			List<Integer> targets = nodeNext.get(node);
+			Integer[] order = new Integer[unsorted.length];
+			for(int i = 0; i < order.length; i++){
+				order[i] = i;
+			}
+			Arrays.sort(order, (a, b) -> Character.compare(unsorted[a], unsorted[b]));
+			chars[node] = new char[unsorted.length];
+			next[node] = new int[unsorted.length];
+			for(int i = 0; i < order.length; i++){
+				chars[node][i] = unsorted[order[i]];
+				next[node][i] = targets.get(order[i]);
+			}
+		}
+		
+		int[] depth = new int[size];
+		String[] values = nodeValues.toArray(String[]::new);
+		for(int node = 0; node < size; node++){
+			depth[node] = nodeDepth.get(node);
+		}
+		
+		int[] fail = new int[size];
+		int[] output = new int[size];
+		Queue<Integer> queue = new ArrayDeque<>();
+		for(int child : next[0]){
+			output[child] = values[child] != null ? child : 0;
+			queue.add(child);
+		}
+		while(!queue.isEmpty()){
+			int node = queue.poll();
+			for(int i = 0; i < chars[node].length; i++){
+				int child = next[node][i];
+				int state = fail[node];
+				int target = step(chars, next, state, chars[node][i]);
+				while(target < 0 && state != 0){
+					state = fail[state];
+					target = step(chars, next, state, chars[node][i]);
+				}
+				fail[child] = Math.max(target, 0);
+				output[child] = values[child] != null ? child : output[fail[child]];
+				queue.add(child);
+			}
+		}
+		
+		return new Replacer(chars, next, fail, depth, output, values);
+	}
+	
+	private static int step(char[][] chars, int[][] next, int node, char c) {
+		int index = Arrays.binarySearch(chars[node], c);
+		return index >= 0 ? next[node][index] : -1;
+	}
+	
+	/**
+	 * Replaces all keys found in the input
+	 *
+	 * @param input the input to replace keys in
+	 * @return the replaced result or the input itself if no key was found
+	 */
+	public String replace(@NotNull String input) {
+		if(this == EMPTY){
+			return input;
+		}
+		StringBuilder builder = null;
+		int copied = 0;
+		int state = 0;
+		int matchNode = 0;
+		int matchStart = -1;
+		int i = 0;
+		while(i < input.length()){
+			char c = input.charAt(i++);
+			int target = step(chars, next, state, c);
+			while(target < 0 && state != 0){
+				state = fail[state];
+				target = step(chars, next, state, c);
+			}
+			state = Math.max(target, 0);
+			
+			int found = output[state];
+			if(found != 0){
+				int start = i - depth[found];
+				if(matchStart < 0 || start < matchStart || start == matchStart && depth[found] > depth[matchNode]){
+					matchNode = found;
+					matchStart = start;
+				}
+			}
+			
+			//no key starting at or before the candidate can still be matched, so it is final
+			if(matchStart >= 0 && (i - depth[state] > matchStart || i == input.length())){
+				if(builder == null){
+					builder = new StringBuilder(input.length() + 16);
+				}
+				builder.append(input, copied, matchStart).append(values[matchNode]);
+				copied = matchStart + depth[matchNode];
+				i = copied;
+				state = 0;
+				matchNode = 0;
+				matchStart = -1;
+			}
+		}
+		
+		if(builder == null){
+			return input;
+		}
+		return builder.append(input, copied, input.length()).toString();
+	}
+	
+	/**
+	 * @return true if this replacer has no keys
+	 */
+	public boolean isEmpty() {
+		return this == EMPTY;
+	}
+}
@@ -0,0 +1,93 @@
+package com.wonkglorg.utilitylib.config.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Receives measurements of configs and lang requests. All methods do nothing by default, implementations only override what they record.
+ * Methods are called on the hot path of every request and from any thread, implementations have to be thread safe and cheap.
+ *
+ * <pre>
+ *     InMemoryConfigMetrics metrics = new InMemoryConfigMetrics();
+ *     ConfigMetrics.set(metrics);
+ * </pre>
+ */
+public interface ConfigMetrics{
+	/**
+	 * Metrics that do not record anything, used until other metrics are set
+	 */
+	ConfigMetrics NOOP = new ConfigMetrics(){};
+	
+	/**
+	 * @return the metrics currently recorded to
+	 */
+	static ConfigMetrics get() {
+		return MetricsHolder.current;
+	}
+	
+	/**
+	 * @param metrics the metrics to record to or null to stop recording
+	 */
+	static void set(@Nullable ConfigMetrics metrics) {
+		MetricsHolder.current = metrics != null ? metrics : NOOP;
+	}
+	
+	/**
+	 * Called after a config file was parsed, loads skipped because the file did not change are not recorded
+	 *
+	 * @param config the name of the config
+	 * @param nanos the time reading and parsing the file took
+	 * @param bytes the size of the file
+	 */
+	default void recordLoad(@NotNull String config, long nanos, long bytes) {
+	}
+	
+	/**
+	 * Called after a config was written, for write behind saves the time includes waiting in the queue
+	 *
+	 * @param config the name of the config
+	 * @param nanos the time serializing and writing the file took
+	 * @param bytes the size of the written file
+	 */
+	default void recordSave(@NotNull String config, long nanos, long bytes) {
+	}
+	
+	/**
+	 * Called once for every result a lang request produces, like getting its result, converting it or sending it to audiences
+	 *
+	 * @param key the requested key
+	 */
+	default void recordRequest(@NotNull String key) {
+	}
+	
+	/**
+	 * Called when a message without replacements was found in a lang config's component cache
+	 */
+	default void recordCacheHit() {
+	}
+	
+	/**
+	 * Called when a message without replacements had to be deserialized since it was not cached
+	 */
+	default void recordCacheMiss() {
+	}
+	
+	/**
+	 * Called when a requested key has no value and the default value is used instead
+	 *
+	 * @param locale the locale of the lang file missing the key or the requested locale if no lang file exists
+	 * @param key the requested key
+	 */
+	default void recordMissingKey(@Nullable Locale locale, @NotNull String key) {
+	}
+	
+	/**
+	 * Called once for every result a lang request with replacements produces
+	 *
+	 * @param count the amount of replacements of the request
+	 */
+	default void recordReplacements(int count) {
+	}
+}
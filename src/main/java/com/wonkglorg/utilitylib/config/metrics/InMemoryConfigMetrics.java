@@ -0,0 +1,235 @@
+package com.wonkglorg.utilitylib.config.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps all measurements in memory using {@link LongAdder}s so recording from many threads does not contend. Durations are kept in a
+ * histogram with power of two microsecond buckets.
+ */
+@SuppressWarnings("unused")
+public final class InMemoryConfigMetrics implements ConfigMetrics{
+	private final Map<String, Timer> loads = new ConcurrentHashMap<>();
+	private final Map<String, Timer> saves = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+	private final Map<MissingKey, LongAdder> missingKeys = new ConcurrentHashMap<>();
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder cacheMisses = new LongAdder();
+	private final LongAdder replacedRequests = new LongAdder();
+	private final LongAdder replacements = new LongAdder();
+	
+	/**
+	 * A key that had no value in the requested lang file
+	 *
+	 * @param locale the locale of the lang file missing the key or the requested locale if no lang file exists
+	 * @param key the requested key
+	 */
+	public record MissingKey(@Nullable Locale locale, @NotNull String key){}
+	
+	/**
+	 * Counts and times an operation
+	 */
+	public static final class Timer{
+		/**
+		 * Bucket i counts durations below 2^i microseconds, the last bucket counts everything longer
+		 */
+		private static final int BUCKETS = 32;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+		private final LongAdder[] histogram = new LongAdder[BUCKETS];
+		
+		private Timer() {
+			for(int i = 0; i < BUCKETS; i++){
+				histogram[i] = new LongAdder();
+			}
+		}
+		
+		private void record(long nanos, long size) {
+			count.increment();
+			totalNanos.add(nanos);
+			bytes.add(size);
+			maxNanos.accumulate(nanos);
+			long micros = Math.max(nanos / 1000, 0);
+			histogram[Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1)].increment();
+		}
+		
+		public long count() {
+			return count.sum();
+		}
+		
+		public long totalNanos() {
+			return totalNanos.sum();
+		}
+		
+		public long bytes() {
+			return bytes.sum();
+		}
+		
+		public long maxNanos() {
+			return maxNanos.get();
+		}
+		
+		public long averageNanos() {
+			long currentCount = count();
+			return currentCount == 0 ? 0 : totalNanos() / currentCount;
+		}
+		
+		/**
+		 * @param percentile the percentile between 0 and 1
+		 * @return the upper bound of the histogram bucket containing the percentile in nanoseconds, exact to a factor of 2
+		 */
+		public long percentileNanos(double percentile) {
+			long[] counts = new long[BUCKETS];
+			long total = 0;
+			for(int i = 0; i < BUCKETS; i++){
+				counts[i] = histogram[i].sum();
+				total += counts[i];
+			}
+			if(total == 0){
+				return 0;
+			}
+			long target = (long) Math.ceil(total * percentile);
+			long seen = 0;
+			for(int i = 0; i < BUCKETS - 1; i++){
+				seen += counts[i];
+				if(seen >= Math.max(target, 1)){
+					return (1L << i) * 1000;
+				}
+			}
+			return maxNanos();
+		}
+	}
+	
+	@Override
+	public void recordLoad(@NotNull String config, long nanos, long bytes) {
+		loads.computeIfAbsent(config, k -> new Timer()).record(nanos, bytes);
+	}
+	
+	@Override
+	public void recordSave(@NotNull String config, long nanos, long bytes) {
+		saves.computeIfAbsent(config, k -> new Timer()).record(nanos, bytes);
+	}
+	
+	@Override
+	public void recordRequest(@NotNull String key) {
+		counter(requests, key).increment();
+	}
+	
+	@Override
+	public void recordCacheHit() {
+		cacheHits.increment();
+	}
+	
+	@Override
+	public void recordCacheMiss() {
+		cacheMisses.increment();
+	}
+	
+	@Override
+	public void recordMissingKey(@Nullable Locale locale, @NotNull String key) {
+		counter(missingKeys, new MissingKey(locale, key)).increment();
+	}
+	
+	@Override
+	public void recordReplacements(int count) {
+		replacedRequests.increment();
+		replacements.add(count);
+	}
+	
+	/**
+	 * Gets the counter of a key, avoiding the locking of computeIfAbsent for existing keys
+	 */
+	private static <K> LongAdder counter(Map<K, LongAdder> counters, K key) {
+		LongAdder counter = counters.get(key);
+		return counter != null ? counter : counters.computeIfAbsent(key, k -> new LongAdder());
+	}
+	
+	/**
+	 * @return the load timings per config name
+	 */
+	public Map<String, Timer> loads() {
+		return Collections.unmodifiableMap(loads);
+	}
+	
+	/**
+	 * @return the save timings per config name
+	 */
+	public Map<String, Timer> saves() {
+		return Collections.unmodifiableMap(saves);
+	}
+	
+	/**
+	 * @return a snapshot of the request count per key
+	 */
+	public Map<String, Long> requestCounts() {
+		return sums(requests);
+	}
+	
+	/**
+	 * @return a snapshot of the amount of requests per key and locale that fell back to the default value
+	 */
+	public Map<MissingKey, Long> missingKeyCounts() {
+		return sums(missingKeys);
+	}
+	
+	private static <K> Map<K, Long> sums(Map<K, LongAdder> counters) {
+		Map<K, Long> snapshot = new HashMap<>();
+		counters.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+		return snapshot;
+	}
+	
+	public long cacheHits() {
+		return cacheHits.sum();
+	}
+	
+	public long cacheMisses() {
+		return cacheMisses.sum();
+	}
+	
+	/**
+	 * @return the share of cache lookups that were hits between 0 and 1, 0 if there were no lookups
+	 */
+	public double cacheHitRate() {
+		long hits = cacheHits();
+		long total = hits + cacheMisses();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+	
+	/**
+	 * @return the amount of requests rendered with replacements
+	 */
+	public long replacedRequests() {
+		return replacedRequests.sum();
+	}
+	
+	/**
+	 * @return the total amount of replacements of all rendered requests
+	 */
+	public long replacements() {
+		return replacements.sum();
+	}
+	
+	/**
+	 * Removes all recorded measurements
+	 */
+	public void reset() {
+		loads.clear();
+		saves.clear();
+		requests.clear();
+		missingKeys.clear();
+		cacheHits.reset();
+		cacheMisses.reset();
+		replacedRequests.reset();
+		replacements.reset();
+	}
+}
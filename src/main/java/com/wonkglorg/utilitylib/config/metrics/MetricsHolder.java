@@ -0,0 +1,11 @@
+package com.wonkglorg.utilitylib.config.metrics;
+
+/**
+ * Holds the metrics set by {@link ConfigMetrics#set(ConfigMetrics)}
+ */
+final class MetricsHolder{
+	static volatile ConfigMetrics current = ConfigMetrics.NOOP;
+	
+	private MetricsHolder() {
+	}
+}
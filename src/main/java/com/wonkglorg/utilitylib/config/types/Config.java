@@ -1,5 +1,13 @@
 package com.wonkglorg.utilitylib.config.types;
 
+import com.wonkglorg.utilitylib.config.io.AtomicFileWriter;
+import com.wonkglorg.utilitylib.config.io.ConfigSnapshotCache;
+import com.wonkglorg.utilitylib.config.io.FileFingerprint;
+import com.wonkglorg.utilitylib.config.io.FsyncPolicy;
+import com.wonkglorg.utilitylib.config.io.WriteBehindQueue;
+import com.wonkglorg.utilitylib.config.key.ConfigCodec;
+import com.wonkglorg.utilitylib.config.key.ConfigKey;
+import com.wonkglorg.utilitylib.config.metrics.ConfigMetrics;
 import org.bukkit.Location;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
@@ -12,12 +20,16 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import static java.util.logging.Logger.getLogger;
@@ -33,6 +45,43 @@ public class Config extends YamlConfiguration{
 	protected final Path destinationPath;
 	protected final File file;
 	protected final Logger logger;
+	/**
+	 * Queue used to write this config in the background, null to write on the calling thread
+	 */
+	private volatile WriteBehindQueue writeBehindQueue;
+	/**
+	 * True if the config was modified since it was last loaded or saved
+	 */
+	private volatile boolean dirty = false;
+	/**
+	 * When saves of this config are forced to the disk
+	 */
+	private volatile FsyncPolicy fsyncPolicy = FsyncPolicy.BATCHED;
+	/**
+	 * The file as it was last loaded or saved, null if unknown
+	 */
+	private volatile FileFingerprint fingerprint;
+	/**
+	 * The serialized content of the config as it was last saved, null if it was loaded since
+	 */
+	private volatile FileFingerprint savedContent;
+	/**
+	 * The content of the latest save queued on the {@link #writeBehindQueue}, only the completion of this save records the fingerprint
+	 */
+	private volatile String latestQueuedSave;
+	/**
+	 * Incremented after every modification or reload, used to invalidate the values cached by {@link ConfigKey}s
+	 */
+	private final AtomicLong generation = new AtomicLong();
+	/**
+	 * True to store item stacks as Base64 encoded bytes instead of their serialized map
+	 */
+	private volatile boolean binaryItemStacks = false;
+	/**
+	 * Keys caching the decoded item stacks and item stack lists per path
+	 */
+	private final Map<String, ConfigKey<ItemStack>> itemStackKeys = new ConcurrentHashMap<>();
+	private final Map<String, ConfigKey<List<ItemStack>>> itemStackListKeys = new ConcurrentHashMap<>();
 	
 	/**
 	 * Creates a new file at the specified location or copies an existing one from the resource folder based on the sourcePath,
@@ -146,8 +195,181 @@ public class Config extends YamlConfiguration{
 		return configurationSection.getCurrentPath();
 	}
 	
+	@Override
+	public void set(@NotNull String path, @Nullable Object value) {
+		super.set(path, value);
+		modified();
+	}
+	
+	@Override
+	public @NotNull ConfigurationSection createSection(@NotNull String path) {
+		ConfigurationSection section = TrackedSection.createSection(this, path, this, super::set);
+		modified();
+		return section;
+	}
+	
+	@Override
+	public @NotNull ConfigurationSection createSection(@NotNull String path, @NotNull Map<?, ?> map) {
+		ConfigurationSection section = super.createSection(path, map);
+		modified();
+		return section;
+	}
+	
+	/**
+	 * Called after a value of this config or any of its sections was modified
+	 */
+	void modified() {
+		dirty = true;
+		generation.incrementAndGet();
+	}
+	
+	/**
+	 * Called after a comment of this config or any of its sections was modified
+	 */
+	void commentsModified() {
+		dirty = true;
+	}
+	
+	@Override
+	public void setComments(@NotNull String path, @Nullable List<String> comments) {
+		super.setComments(path, comments);
+		commentsModified();
+	}
+	
+	@Override
+	public void setInlineComments(@NotNull String path, @Nullable List<String> comments) {
+		super.setInlineComments(path, comments);
+		commentsModified();
+	}
+	
+	@Override
+	public void loadFromString(@NotNull String contents) throws InvalidConfigurationException {
+		super.loadFromString(contents);
+		dirty = false;
+		fingerprint = null;
+		savedContent = null;
+		generation.incrementAndGet();
+	}
+	
+	/**
+	 * @return true if the config or any of its sections was modified through {@link #set(String, Object)} or similar since it was last loaded
+	 * or saved, modifications of values in place (for example a list returned by {@link #getList(String)}) are not tracked, see
+	 * {@link #hasUnsavedChanges()}
+	 */
+	public boolean isDirty() {
+		return dirty;
+	}
+	
+	/**
+	 * Checks if the config has modifications that were not saved yet, including modifications of values in place which {@link #isDirty()}
+	 * does not track. These are detected by serializing the config and comparing it to the content of the last save, so they are only
+	 * detected once the config was saved since it was last loaded.
+	 *
+	 * @return true if the config has unsaved modifications
+	 */
+	public boolean hasUnsavedChanges() {
+		if(dirty){
+			return true;
+		}
+		FileFingerprint saved = savedContent;
+		return saved != null && !saved.sameContent(FileFingerprint.of(saveToString().getBytes(StandardCharsets.UTF_8), 0));
+	}
+	
+	/**
+	 * Marks the config as modified so cached {@link ConfigKey} values are read again and the config counts as dirty, needed after modifying a
+	 * value in place (for example a list returned by {@link #getList(String)}) since this is not tracked. Saves are skipped while the config
+	 * is not dirty, so in place modifications have to call this before saving to be written.
+	 */
+	public void markDirty() {
+		modified();
+	}
+	
+	/**
+	 * Reads a typed value, the decoded value is cached until this config or any of its sections is modified or reloaded. Values modified in
+	 * place (for example a list returned by {@link #getList(String)}) are not detected, write them back with {@link #set(String, Object)} or
+	 * call {@link #markDirty()} afterwards.
+	 *
+	 * @param key the key to read
+	 * @return the value or the default value of the key if there is no convertible value at its path
+	 */
+	public <T> T get(@NotNull ConfigKey<T> key) {
+		return key.get(this);
+	}
+	
+	/**
+	 * Writes a typed value
+	 *
+	 * @param key the key to write
+	 * @param value the value to write or null to remove it
+	 */
+	public <T> void set(@NotNull ConfigKey<T> key, @Nullable T value) {
+		set(key.path(), key.encode(value));
+	}
+	
+	/**
+	 * @return a number that changes whenever this config or any of its sections is modified or reloaded
+	 */
+	public long getGeneration() {
+		return generation.get();
+	}
+	
+	/**
+	 * Stores the item stack as its serialized map or as Base64 encoded bytes if {@link #isBinaryItemStacks()} is enabled
+	 */
 	public void setItemStack(String path, ItemStack itemStack) {
-		set(path, itemStack.serialize());
+		if(binaryItemStacks){
+			set(path, ConfigCodec.BINARY_ITEM_STACK.encode(itemStack));
+		} else {
+			set(path, itemStack.serialize());
+		}
+	}
+	
+	/**
+	 * Stores the item stacks as a list of serialized maps or as a single Base64 string if {@link #isBinaryItemStacks()} is enabled
+	 */
+	public void setItemStacks(String path, List<ItemStack> itemStacks) {
+		if(binaryItemStacks){
+			set(path, ConfigCodec.BINARY_ITEM_STACK_LIST.encode(itemStacks));
+		} else {
+			set(path, itemStacks.stream().map(ItemStack::serialize).toList());
+		}
+	}
+	
+	/**
+	 * Reads an item stack stored by {@link #setItemStack(String, ItemStack)} in either format, the decoded item is cached until this config
+	 * is modified or reloaded. Every call returns a copy, so modifying the returned item does not change the cached one.
+	 */
+	@Override
+	public @Nullable ItemStack getItemStack(@NotNull String path) {
+		return itemStackKeys.computeIfAbsent(path, key -> ConfigKey.of(key, ConfigCodec.BINARY_ITEM_STACK)).get(this);
+	}
+	
+	@Override
+	public @Nullable ItemStack getItemStack(@NotNull String path, @Nullable ItemStack def) {
+		ItemStack itemStack = getItemStack(path);
+		return itemStack != null ? itemStack : def;
+	}
+	
+	/**
+	 * Reads item stacks stored by {@link #setItemStacks(String, List)} in either format, the decoded items are cached until this config is
+	 * modified or reloaded
+	 *
+	 * @return the item stacks or an empty list if there are none
+	 */
+	public List<ItemStack> getItemStacks(@NotNull String path) {
+		return itemStackListKeys.computeIfAbsent(path, key -> ConfigKey.of(key, ConfigCodec.BINARY_ITEM_STACK_LIST, List.of())).get(this);
+	}
+	
+	/**
+	 * @param binaryItemStacks true to store item stacks as Base64 encoded bytes, which are a lot smaller and faster to load than the
+	 * serialized maps. Both formats can always be read.
+	 */
+	public void setBinaryItemStacks(boolean binaryItemStacks) {
+		this.binaryItemStacks = binaryItemStacks;
+	}
+	
+	public boolean isBinaryItemStacks() {
+		return binaryItemStacks;
 	}
 	
 	public void setLocation(String path, Location location) {
@@ -186,48 +408,307 @@ public class Config extends YamlConfiguration{
 		}
 	}
 	
+	/**
+	 * Loads the config from its file, skipped if the file did not change since it was last loaded or saved and the config has no unsaved
+	 * changes
+	 */
 	public void load() {
+		load(false);
+	}
+	
+	/**
+	 * Loads the config from its file
+	 *
+	 * @param force true to always parse the file, false to skip it if the file did not change since it was last loaded or saved and the
+	 * config has no unsaved changes
+	 * @return true if the file was parsed
+	 */
+	public boolean load(boolean force) {
 		try{
-			checkFile();
-			load(file);
-			logger.log(Level.INFO, "Loaded data from " + name + "!");
+			boolean parsed = loadIfChanged(force);
+			if(parsed){
+				logger.log(Level.INFO, "Loaded data from " + name + "!");
+			} else {
+				logger.log(Level.INFO, "Data of " + name + " is unchanged!");
+			}
+			return parsed;
 		} catch(InvalidConfigurationException | IOException e){
 			logger.log(Level.SEVERE, e.getMessage());
 			logger.log(Level.WARNING, "Error loading data from " + name + "!");
+			return false;
 		}
 	}
 	
+	/**
+	 * Loads the config from its file without logging, skipped if the file did not change since it was last loaded or saved and the config has
+	 * no unsaved changes
+	 */
 	public void silentLoad() {
+		silentLoad(false);
+	}
+	
+	/**
+	 * Loads the config from its file without logging
+	 *
+	 * @param force true to always parse the file, false to skip it if the file did not change since it was last loaded or saved and the
+	 * config has no unsaved changes
+	 * @return true if the file was parsed
+	 */
+	public boolean silentLoad(boolean force) {
 		try{
-			checkFile();
-			load(file);
+			return loadIfChanged(force);
 		} catch(InvalidConfigurationException | IOException e){
 			logger.log(Level.SEVERE, e.getMessage());
 			logger.log(Level.WARNING, "Error loading data from " + name + "!");
+			return false;
 		}
 	}
 	
+	/**
+	 * Parses the file unless its size, modified time or content show that it did not change since it was last loaded or saved
+	 *
+	 * @return true if the file was parsed
+	 */
+	private boolean loadIfChanged(boolean force) throws IOException, InvalidConfigurationException {
+		checkFile();
+		Path path = file.toPath();
+		WriteBehindQueue queue = writeBehindQueue;
+		if(queue != null){
+			//a queued save would overwrite the file with newer content than it holds right now
+			queue.awaitWrite(path);
+		}
+		FileFingerprint previous = fingerprint;
+		boolean canSkip = !force && !dirty && previous != null;
+		if(canSkip && previous.isUnchanged(path)){
+			return false;
+		}
+		long start = System.nanoTime();
+		long modified = Files.getLastModifiedTime(path).toMillis();
+		byte[] content = Files.readAllBytes(path);
+		FileFingerprint current = FileFingerprint.of(content, modified);
+		if(canSkip && current.sameContent(previous)){
+			fingerprint = current;
+			return false;
+		}
+		if(ConfigSnapshotCache.isEnabled() && ConfigSnapshotCache.restore(this, path, current)){
+			dirty = false;
+			fingerprint = current;
+			savedContent = null;
+			ConfigMetrics.get().recordLoad(name, System.nanoTime() - start, content.length);
+			return true;
+		}
+		loadFromString(new String(content, StandardCharsets.UTF_8));
+		fingerprint = current;
+		ConfigMetrics.get().recordLoad(name, System.nanoTime() - start, content.length);
+		if(ConfigSnapshotCache.isEnabled() && !ConfigSnapshotCache.store(this, path, current)){
+			logger.log(Level.FINE, "Could not store a snapshot of " + name + ", it will be parsed on every load");
+		}
+		return true;
+	}
+	
+	/**
+	 * A file parsed by {@link #parseChangedFile()} without modifying the config
+	 *
+	 * @param content the parsed file
+	 * @param fingerprint the fingerprint of the parsed file
+	 * @param previous the fingerprint of the config at the time the file was parsed
+	 */
+	public record ParsedFile(YamlConfiguration content, FileFingerprint fingerprint, @Nullable FileFingerprint previous){}
+	
+	/**
+	 * Reads and parses the file into a detached configuration if it changed since this config was last loaded or saved, this config is not
+	 * modified so this is safe to call off the thread that owns the config. Use {@link #applyParsedFile(ParsedFile)} on the owning thread to
+	 * replace the content of this config with the result.
+	 *
+	 * @return the parsed file or null if it did not change
+	 * @throws IOException if the file could not be read
+	 * @throws InvalidConfigurationException if the file is not valid yaml
+	 */
+	public @Nullable ParsedFile parseChangedFile() throws IOException, InvalidConfigurationException {
+		Path path = file.toPath();
+		WriteBehindQueue queue = writeBehindQueue;
+		if(queue != null){
+			queue.awaitWrite(path);
+		}
+		FileFingerprint previous = fingerprint;
+		if(previous != null && previous.isUnchanged(path)){
+			return null;
+		}
+		long start = System.nanoTime();
+		long modified = Files.getLastModifiedTime(path).toMillis();
+		byte[] content = Files.readAllBytes(path);
+		FileFingerprint current = FileFingerprint.of(content, modified);
+		if(current.sameContent(previous)){
+			return null;
+		}
+		YamlConfiguration parsed = new YamlConfiguration();
+		parsed.options().parseComments(options().parseComments());
+		parsed.loadFromString(new String(content, StandardCharsets.UTF_8));
+		ConfigMetrics.get().recordLoad(name, System.nanoTime() - start, content.length);
+		return new ParsedFile(parsed, current, previous);
+	}
+	
+	/**
+	 * Replaces the content of this config with a file parsed by {@link #parseChangedFile()}, copying the parsed tree is much cheaper than
+	 * parsing the file
+	 *
+	 * @param parsedFile the parsed file
+	 * @return true if the content was replaced, false if this config was loaded or saved since the file was parsed
+	 */
+	public boolean applyParsedFile(@NotNull ParsedFile parsedFile) {
+		if(fingerprint != parsedFile.previous()){
+			return false;
+		}
+		for(String key : getKeys(false)){
+			set(key, null);
+		}
+		copy(parsedFile.content(), this);
+		options().setHeader(parsedFile.content().options().getHeader());
+		options().setFooter(parsedFile.content().options().getFooter());
+		dirty = false;
+		fingerprint = parsedFile.fingerprint();
+		savedContent = null;
+		return true;
+	}
+	
+	private static void copy(ConfigurationSection source, ConfigurationSection target) {
+		for(String key : source.getKeys(false)){
+			Object value = source.get(key);
+			if(value instanceof ConfigurationSection section){
+				copy(section, target.createSection(key));
+			} else {
+				target.set(key, value);
+			}
+			List<String> comments = source.getComments(key);
+			if(!comments.isEmpty()){
+				target.setComments(key, comments);
+			}
+			List<String> inlineComments = source.getInlineComments(key);
+			if(!inlineComments.isEmpty()){
+				target.setInlineComments(key, inlineComments);
+			}
+		}
+	}
+	
+	/**
+	 * Atomically saves the config to its file, skipped without serializing if the config is not {@link #isDirty() dirty}
+	 */
 	public void save() {
+		save(true);
+	}
+	
+	/**
+	 * Atomically saves the config to its file without logging, skipped without serializing if the config is not {@link #isDirty() dirty}
+	 */
+	public void silentSave() {
+		save(false);
+	}
+	
+	private void save(boolean log) {
+		if(!dirty){
+			return;
+		}
+		dirty = false;
+		String serialized = saveToString();
+		byte[] content = serialized.getBytes(StandardCharsets.UTF_8);
+		savedContent = FileFingerprint.of(content, 0);
+		if(isWriteBehind()){
+			enqueueSave(serialized, content, log);
+			return;
+		}
 		try{
-			checkFile();
-			save(file);
-			logger.log(Level.INFO, "Saved data to " + name + "!");
+			write(content);
+			if(log){
+				logger.log(Level.INFO, "Saved data to " + name + "!");
+			}
 		} catch(IOException e){
-			logger.log(Level.SEVERE, e.getMessage());
+			dirty = true;
 			logger.log(Level.WARNING, "Error saving data to " + name + "!");
+			logger.log(Level.SEVERE, e.getMessage(), e);
 		}
 	}
 	
-	public void silentSave() {
+	/**
+	 * Writes the serialized config to its file on the calling thread and remembers the written content
+	 */
+	private void write(byte[] content) throws IOException {
+		checkFile();
+		Path path = file.toPath();
+		long start = System.nanoTime();
+		fingerprint = null;
+		AtomicFileWriter.write(path, content, fsyncPolicy);
+		fingerprint = FileFingerprint.of(content, Files.getLastModifiedTime(path).toMillis());
+		ConfigMetrics.get().recordSave(name, System.nanoTime() - start, content.length);
+	}
+	
+	private boolean isWriteBehind() {
+		WriteBehindQueue queue = writeBehindQueue;
+		return queue != null && !queue.isClosed();
+	}
+	
+	/**
+	 * Queues the serialized config to be written in the background
+	 *
+	 * @param serialized the config serialized on the calling thread
+	 * @param content the UTF-8 bytes of the serialized config
+	 * @param log if the result should be logged like {@link #save()} does
+	 */
+	private void enqueueSave(String serialized, byte[] content, boolean log) {
 		try{
 			checkFile();
-			save(file);
-		} catch(IOException e){
+			//the file is written later, the next load has to read it
+			fingerprint = null;
+			long start = System.nanoTime();
+			Path path = file.toPath();
+			latestQueuedSave = serialized;
+			writeBehindQueue.enqueue(path, serialized, fsyncPolicy).whenComplete((ignored, e) -> {
+				if(e != null){
+					dirty = true;
+					logger.log(Level.WARNING, "Error saving data to " + name + "!");
+					logger.log(Level.SEVERE, e.getMessage(), e);
+					return;
+				}
+				if(latestQueuedSave == serialized){
+					try{
+						fingerprint = FileFingerprint.of(content, Files.getLastModifiedTime(path).toMillis());
+					} catch(IOException modifiedError){
+						//the next load reads the file instead
+					}
+				}
+				ConfigMetrics.get().recordSave(name, System.nanoTime() - start, content.length);
+				if(log){
+					logger.log(Level.INFO, "Saved data to " + name + "!");
+				}
+			});
+		} catch(IOException | IllegalStateException e){
+			dirty = true;
 			logger.log(Level.WARNING, "Error saving data to " + name + "!");
 			logger.log(Level.SEVERE, e.getMessage(), e);
 		}
 	}
 	
+	/**
+	 * @param writeBehindQueue the queue to write this config in the background with or null to write on the calling thread
+	 */
+	public void setWriteBehindQueue(@Nullable WriteBehindQueue writeBehindQueue) {
+		this.writeBehindQueue = writeBehindQueue;
+	}
+	
+	public @Nullable WriteBehindQueue getWriteBehindQueue() {
+		return writeBehindQueue;
+	}
+	
+	/**
+	 * @param fsyncPolicy when saves of this config are forced to the disk (default: {@link FsyncPolicy#BATCHED})
+	 */
+	public void setFsyncPolicy(@NotNull FsyncPolicy fsyncPolicy) {
+		this.fsyncPolicy = fsyncPolicy;
+	}
+	
+	public FsyncPolicy getFsyncPolicy() {
+		return fsyncPolicy;
+	}
+	
 	public String name() {
 		return name;
 	}
@@ -236,6 +717,13 @@ public class Config extends YamlConfiguration{
 		return destinationPath.toString();
 	}
 	
+	/**
+	 * @return the file this config is loaded from and saved to
+	 */
+	public File file() {
+		return file;
+	}
+	
 	/**
 	 * Checks if file exists in path, else create the file and all parent directories needed.
 	 */
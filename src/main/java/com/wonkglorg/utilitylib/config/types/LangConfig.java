@@ -1,14 +1,27 @@
 package com.wonkglorg.utilitylib.config.types;
 
-import org.bukkit.configuration.InvalidConfigurationException;
+import com.wonkglorg.utilitylib.config.LangManager;
+import com.wonkglorg.utilitylib.config.lang.ComponentCache;
+import com.wonkglorg.utilitylib.config.lang.ComponentTemplate;
+import com.wonkglorg.utilitylib.config.lang.LangSnapshot;
+import com.wonkglorg.utilitylib.config.lang.MessageTemplate;
+import com.wonkglorg.utilitylib.config.lang.Replacer;
+import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.logging.Level;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 @SuppressWarnings("unused")
 public class LangConfig extends Config{
@@ -28,13 +41,39 @@ public class LangConfig extends Config{
 	private String placeholderPath = "placeholders";
 	private char placeholderChar = '%';
 	/**
-	 * Update request used when the replacer map needs to be updated
+	 * Update request used when the snapshot needs to be rebuilt from the current values of the config
 	 */
-	private boolean updateRequest = false;
+	private volatile boolean updateRequest = false;
 	/**
-	 * Map of placeholders and their values to replace them by
+	 * The flattened values and placeholders of this config, replaced as a whole once a load completed
 	 */
-	private final Map<String, String> replacerMap = new ConcurrentHashMap<>();
+	private volatile LangSnapshot snapshot = LangSnapshot.EMPTY;
+	/**
+	 * The snapshot compiled with all global and config replacements applied, null until requested after a change
+	 */
+	private volatile Compiled compiled;
+	/**
+	 * Deserialized messages of requests without replacements, cleared whenever the compiled state is rebuilt
+	 */
+	private final ComponentCache componentCache = new ComponentCache();
+	
+	/**
+	 * Templates and the replacer they were compiled with
+	 *
+	 * @param snapshot the snapshot the templates were compiled from
+	 * @param fallbackSnapshot the snapshot of the fallback config missing keys were taken from, null if there is none
+	 * @param replacerGeneration the {@link LangManager#getReplacerGeneration()} at compile time
+	 * @param replacer the replacer for the combined global, config and fallback config replacements
+	 * @param templates the compiled templates per key, including the keys only the fallback config has
+	 * @param inheritedKeys the keys whose templates were compiled from the fallback config
+	 * @param componentTemplates the templates parsed by MiniMessage per key, filled on first use
+	 */
+	private record Compiled(LangSnapshot snapshot, LangSnapshot fallbackSnapshot, long replacerGeneration, Replacer replacer,
+							Map<String, List<MessageTemplate>> templates, Set<String> inheritedKeys, Map<String, List<ComponentTemplate>> componentTemplates){
+		private boolean isCurrent(LangSnapshot snapshot, LangSnapshot fallbackSnapshot, long replacerGeneration) {
+			return this.snapshot == snapshot && this.fallbackSnapshot == fallbackSnapshot && this.replacerGeneration == replacerGeneration;
+		}
+	}
 	
 	/**
 	 * Constructor for the LangConfig class
@@ -46,6 +85,7 @@ public class LangConfig extends Config{
 	public LangConfig(@NotNull JavaPlugin plugin, @NotNull Path sourcePath, @NotNull Path destinationPath) {
 		super(plugin, sourcePath, destinationPath);
 		syncWithDefaults();
+		updateSnapshot();
 	}
 	
 	/**
@@ -57,6 +97,7 @@ public class LangConfig extends Config{
 	public LangConfig(@NotNull JavaPlugin plugin, @NotNull String name) {
 		super(plugin, name);
 		syncWithDefaults();
+		updateSnapshot();
 	}
 	
 	/**
@@ -68,52 +109,195 @@ public class LangConfig extends Config{
 	public LangConfig(@NotNull JavaPlugin plugin, @NotNull Path path) {
 		super(plugin, path);
 		syncWithDefaults();
+		updateSnapshot();
 	}
 	
 	@Override
-	public void load() {
-		setUpdateRequest(true);
-		try{
-			checkFile();
-			load(file);
-			logger.log(Level.INFO, "Loaded data from " + name + "!");
-		} catch(InvalidConfigurationException | IOException e){
-			logger.log(Level.WARNING, "Error loading data from " + name + "!");
-			logger.log(Level.SEVERE, e.getMessage(), e);
-		}
+	public synchronized boolean load(boolean force) {
+		boolean parsed = super.load(force);
+		if(parsed) updateSnapshot();
+		return parsed;
 	}
 	
 	@Override
-	public void silentLoad() {
-		setUpdateRequest(true);
-		try{
-			checkFile();
-			load(file);
-		} catch(InvalidConfigurationException | IOException e){
-			logger.log(Level.WARNING, "Error loading data from " + name + "!");
-			logger.log(Level.SEVERE, e.getMessage(), e);
+	public synchronized boolean silentLoad(boolean force) {
+		boolean parsed = super.silentLoad(force);
+		if(parsed) updateSnapshot();
+		return parsed;
+	}
+	
+	/**
+	 * Reloads the config on the given executor, requests keep reading the previous snapshot until the new one is complete
+	 *
+	 * @param executor the executor to load the config on
+	 * @return a future completed once the new snapshot is published
+	 */
+	public CompletableFuture<Void> reloadAsync(Executor executor) {
+		return CompletableFuture.runAsync(this::silentLoad, executor);
+	}
+	
+	/**
+	 * Reloads the config on the common pool, requests keep reading the previous snapshot until the new one is complete
+	 *
+	 * @return a future completed once the new snapshot is published
+	 */
+	public CompletableFuture<Void> reloadAsync() {
+		return reloadAsync(ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Rebuilds the snapshot from the current values of the config and publishes it
+	 */
+	public synchronized void updateReplacerMap() {
+		updateSnapshot();
+	}
+	
+	private synchronized void updateSnapshot() {
+		//called by the Config constructor before the fields of this class are initialized, the constructors of this class update it afterwards
+		if(componentCache == null){
+			return;
+		}
+		snapshot = LangSnapshot.of(this, placeholderPath, placeholderChar);
+		updateRequest = false;
+	}
+	
+	/**
+	 * @return the current snapshot of this config, rebuilding it first if an update was requested
+	 */
+	public LangSnapshot getSnapshot() {
+		if(isUpdateRequest()) updateSnapshot();
+		return snapshot;
+	}
+	
+	/**
+	 * Gets the compiled state for the current global replacements, recompiling it if this config or its fallback config was reloaded or any
+	 * replacer map changed
+	 */
+	private Compiled compiled(LangManager langManager) {
+		LangSnapshot current = getSnapshot();
+		LangConfig fallback = getFallback(langManager);
+		LangSnapshot fallbackSnapshot = fallback != null ? fallback.getSnapshot() : null;
+		long generation = langManager.getReplacerGeneration();
+		Compiled currentCompiled = compiled;
+		if(currentCompiled != null && currentCompiled.isCurrent(current, fallbackSnapshot, generation)){
+			return currentCompiled;
 		}
+		synchronized(this){
+			current = getSnapshot();
+			currentCompiled = compiled;
+			if(currentCompiled == null || !currentCompiled.isCurrent(current, fallbackSnapshot, generation)){
+				currentCompiled = compile(current, fallback, fallbackSnapshot, langManager, generation);
+				compiled = currentCompiled;
+				componentCache.invalidate();
+			}
+			return currentCompiled;
+		}
+	}
+	
+	/**
+	 * @return the config missing keys are taken from or null if this is the fallback config or key fallback is disabled
+	 */
+	private LangConfig getFallback(LangManager langManager) {
+		LangConfig fallback = langManager.getFallbackLangConfig().orElse(null);
+		return fallback != this ? fallback : null;
 	}
 	
-	public void updateReplacerMap() {
-		if(this.isSet(this.getPlaceholderPath())){
-			String path = this.getPlaceholderPath();
-			for(Map.Entry<String, Object> entry : getEntries(path).entrySet()){
-				String placeholderValue = entry.getValue().toString();
-				String searchKey = placeholderChar + entry.getKey() + placeholderChar;
-				replacerMap.put(searchKey, placeholderValue);
+	/**
+	 * Compiles every value into {@link MessageTemplate}s after applying all global and config replacements in a single scan. Keys only the
+	 * fallback config has are compiled from its values, so requests for them do not need a second lookup.
+	 */
+	private Compiled compile(LangSnapshot snapshot, LangConfig fallback, LangSnapshot fallbackSnapshot, LangManager langManager, long generation) {
+		Map<String, String> fallbackReplacements = fallbackSnapshot != null ? fallbackSnapshot.replacements() : Map.of();
+		Replacer replacer = Replacer.of(langManager.getReplacerMap(), snapshot.replacements(), fallbackReplacements);
+		Map<String, List<MessageTemplate>> templates = new HashMap<>();
+		for(var entry : snapshot.values().entrySet()){
+			templates.put(entry.getKey(), compile(entry.getValue(), replacer, placeholderChar));
+		}
+		Set<String> inheritedKeys = Set.of();
+		if(fallbackSnapshot != null){
+			Set<String> inherited = new HashSet<>();
+			for(var entry : fallbackSnapshot.values().entrySet()){
+				if(!templates.containsKey(entry.getKey())){
+					templates.put(entry.getKey(), compile(entry.getValue(), replacer, fallback.getPlaceholderChar()));
+					inherited.add(entry.getKey());
+				}
 			}
+			inheritedKeys = Set.copyOf(inherited);
+		}
+		return new Compiled(snapshot, fallbackSnapshot, generation, replacer, templates, inheritedKeys, new ConcurrentHashMap<>());
+	}
+	
+	private static List<MessageTemplate> compile(List<String> lines, Replacer replacer, char placeholderChar) {
+		return lines.stream().map(value -> MessageTemplate.compile(replacer.replace(value), placeholderChar)).toList();
+	}
+	
+	/**
+	 * Gets the compiled templates for a key with all global and config replacements already applied, keys this config does not have are taken
+	 * from the {@link LangManager#getFallbackLangConfig() fallback config}
+	 *
+	 * @param key the key to get the templates for
+	 * @param langManager the lang manager providing the global replacements
+	 * @return one template per line of the value or null if neither this nor the fallback config have a value for the key
+	 */
+	public List<MessageTemplate> getTemplates(String key, LangManager langManager) {
+		return compiled(langManager).templates().get(key);
+	}
+	
+	/**
+	 * @param key the key to check
+	 * @param langManager the lang manager providing the fallback config
+	 * @return true if this config has no value for the key and the value of the fallback config is used
+	 */
+	public boolean isInherited(String key, LangManager langManager) {
+		Set<String> inheritedKeys = compiled(langManager).inheritedKeys();
+		return !inheritedKeys.isEmpty() && inheritedKeys.contains(key);
+	}
+	
+	/**
+	 * Gets the templates for a key parsed by MiniMessage, parsing them on first use
+	 *
+	 * @param key the key to get the templates for
+	 * @param langManager the lang manager providing the global replacements
+	 * @return one template per line of the value with null for lines that could not be parsed into a template or null if the key has no value
+	 */
+	public List<ComponentTemplate> getComponentTemplates(String key, LangManager langManager) {
+		Compiled current = compiled(langManager);
+		List<MessageTemplate> templates = current.templates().get(key);
+		if(templates == null){
+			return null;
 		}
-		
-		setUpdateRequest(false);
+		return current.componentTemplates().computeIfAbsent(key, k -> {
+			ComponentTemplate[] parsed = new ComponentTemplate[templates.size()];
+			for(int i = 0; i < parsed.length; i++){
+				parsed[i] = ComponentTemplate.parse(templates.get(i), MiniMessage.miniMessage());
+			}
+			return Collections.unmodifiableList(Arrays.asList(parsed));
+		});
 	}
 	
 	/**
-	 * @return the replacer map of all keys to be replaced and their values
+	 * Gets the replacer for the global replacements combined with the ones of this config and the fallback config, global replacements take
+	 * priority
+	 *
+	 * @param langManager the lang manager providing the global replacements
+	 * @return the combined replacer
+	 */
+	public Replacer getReplacer(LangManager langManager) {
+		return compiled(langManager).replacer();
+	}
+	
+	/**
+	 * @return the cache of deserialized messages without replacements
+	 */
+	public ComponentCache getComponentCache() {
+		return componentCache;
+	}
+	
+	/**
+	 * @return an unmodifiable map of all keys to be replaced and their values
 	 */
 	public Map<String, String> getReplacerMap() {
-		if(isUpdateRequest()) updateReplacerMap();
-		return replacerMap;
+		return getSnapshot().replacements();
 	}
 	
 	/**
@@ -121,6 +305,7 @@ public class LangConfig extends Config{
 	 */
 	public void setPlaceholderPath(String placeholderString) {
 		this.placeholderPath = placeholderString;
+		setUpdateRequest(true);
 	}
 	
 	public String getPlaceholderPath() {
@@ -128,14 +313,15 @@ public class LangConfig extends Config{
 	}
 	
 	/**
-	 * @return true if an update of the replacer map is requested but not yet performed
+	 * @return true if an update of the snapshot is requested but not yet performed
 	 */
 	public boolean isUpdateRequest() {
 		return updateRequest;
 	}
 	
 	/**
-	 * @param updateRequest when set to true updates the replacer map when next requested
+	 * @param updateRequest when set to true rebuilds the snapshot from the current values of the config when next requested, use this after
+	 * modifying the config directly
 	 */
 	public void setUpdateRequest(boolean updateRequest) {
 		this.updateRequest = updateRequest;
@@ -153,5 +339,6 @@ public class LangConfig extends Config{
 	 */
 	public void setPlaceholderChar(char placeholderChar) {
 		this.placeholderChar = placeholderChar;
+		setUpdateRequest(true);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.wonkglorg.utilitylib.config.types;
+
+import com.wonkglorg.utilitylib.config.key.ConfigKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemorySection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A section of a {@link Config} that reports its modifications to the config, so writes through a child section (for example
+ * {@code getConfigurationSection("kits").set("a", item)}) mark the config dirty and invalidate cached {@link ConfigKey} values just like
+ * writes through the config itself.
+ */
+final class TrackedSection extends MemorySection{
+	private final Config config;
+	
+	private TrackedSection(@NotNull ConfigurationSection parent, @NotNull String path, @NotNull Config config) {
+		super(parent, path);
+		this.config = config;
+	}
+	
+	@Override
+	public void set(@NotNull String path, @Nullable Object value) {
+		super.set(path, value);
+		config.modified();
+	}
+	
+	@Override
+	public @NotNull ConfigurationSection createSection(@NotNull String path) {
+		ConfigurationSection section = createSection(this, path, config, super::set);
+		config.modified();
+		return section;
+	}
+	
+	@Override
+	public void setComments(@NotNull String path, @Nullable List<String> comments) {
+		super.setComments(path, comments);
+		config.commentsModified();
+	}
+	
+	@Override
+	public void setInlineComments(@NotNull String path, @Nullable List<String> comments) {
+		super.setInlineComments(path, comments);
+		config.commentsModified();
+	}
+	
+	/**
+	 * Creates a section the same way {@link MemorySection#createSection(String)} does, except that the created sections are tracked
+	 *
+	 * @param owner the section to create the section in
+	 * @param path the path of the section relative to the owner
+	 * @param config the config the owner belongs to
+	 * @param ownerSet sets a value directly in the owner without going through its overridden {@link #set(String, Object)}
+	 * @return the created section
+	 */
+	static ConfigurationSection createSection(ConfigurationSection owner, String path, Config config, BiConsumer<String, Object> ownerSet) {
+		char separator = config.options().pathSeparator();
+		int i1 = -1;
+		int i2;
+		ConfigurationSection section = owner;
+		while((i1 = path.indexOf(separator, i2 = i1 + 1)) != -1){
+			String node = path.substring(i2, i1);
+			ConfigurationSection subSection = section.getConfigurationSection(node);
+			section = subSection != null ? subSection : section.createSection(node);
+		}
+		String key = path.substring(i2);
+		if(section != owner){
+			return section.createSection(key);
+		}
+		TrackedSection result = new TrackedSection(owner, key, config);
+		//like MemorySection the new section replaces any previous value including its comments
+		ownerSet.accept(key, null);
+		ownerSet.accept(key, result);
+		return result;
+	}
+}